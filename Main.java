@@ -1,7 +1,35 @@
+import cosmo.ProgramExecutor;
 import cosmo.Tokenizer;
+import java.nio.file.Paths;
 
 public class Main {
     public static void main(String[] args) {
+        // Options of the form --name=value set the cosmo.name system property, e.g. --engine=tree
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                System.err.println("Usage: java Main [--engine=vm|jit|ast|tree] [--trace=off|summary|full] [--tree=text|json|dot]"
+                        + " [--iterations=N] [--fuel=N] [--timeout=MS] [--depth=N] [--variables=N]"
+                        + " [--history=off|final|full|N] [--input=FILE] [--batch=DIR] [--stream=FILE]");
+                return;
+            }
+            System.setProperty("cosmo." + arg.substring(2, equals), arg.substring(equals + 1));
+        }
+
+        // Runs every program in the directory concurrently instead of the interactive menu
+        String batch = System.getProperty("cosmo.batch");
+        if (batch != null) {
+            ProgramExecutor.runBatch(Paths.get(batch));
+            return;
+        }
+
+        // Lexes one file, however large, straight into the token and symbol table files
+        String stream = System.getProperty("cosmo.stream");
+        if (stream != null) {
+            new Tokenizer().streamInput(stream.trim());
+            return;
+        }
+
         Tokenizer tokenizer = new Tokenizer();
         tokenizer.processInputs();
     }
@@ -0,0 +1,118 @@
+package cosmo;
+
+import cosmo.interpreter.AstBuilder;
+import cosmo.interpreter.AstProgram;
+import cosmo.interpreter.Bytecode;
+import cosmo.interpreter.BytecodeCompiler;
+import cosmo.interpreter.Engine;
+import cosmo.interpreter.JitCompiler;
+import cosmo.interpreter.JitProgram;
+import cosmo.interpreter.Limits;
+import cosmo.interpreter.ProgramIO;
+import cosmo.interpreter.RunContext;
+import cosmo.interpreter.VirtualMachine;
+import cosmo.lexeme.IdentifierTable;
+import java.util.HashMap;
+import java.util.Stack;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * An accepted, folded program compiled once for one {@link Engine}, ready
+ * to run any number of times, from any number of threads at once. Each run
+ * gets its own {@link RunContext}; what is shared between runs is never
+ * written after construction:
+ * <ul>
+ * <li>VM and JIT: the bytecode, or the loaded JVM class.</li>
+ * <li>TREE: the flat tree, which each run walks through its own root view.
+ * Arithmetic and conditions compiled on first use are cached per node;
+ * runs that race to compile one build equal programs.</li>
+ * <li>AST: nodes rewrite themselves as they run, so runs never share one.
+ * Idle node trees are kept for reuse and another is built from the flat
+ * tree when all are busy, so there are at most as many as there have been
+ * runs at the same time.</li>
+ * </ul>
+ * Built by {@link CosmoEngine#compile(String)}.
+ */
+public final class CompiledProgram {
+    private final Engine requested;
+    private final Engine engine;
+    private final FlatTree tree;
+    private final IdentifierTable identifiers;
+    private final Bytecode bytecode;
+    private final JitProgram jit;
+    private final ConcurrentLinkedQueue<AstProgram> idleAsts = new ConcurrentLinkedQueue<>();
+
+    CompiledProgram(FlatTree tree, Engine engine, IdentifierTable identifiers) {
+        this.requested = engine;
+        this.tree = tree;
+        this.identifiers = identifiers;
+        Bytecode compiled = engine == Engine.VM || engine == Engine.JIT ? BytecodeCompiler.compile(tree.root()) : null;
+        JitProgram loaded = engine == Engine.JIT ? JitCompiler.compile(compiled) : null;
+        if (engine == Engine.JIT && loaded == null) {
+            // Too large for one JVM method, so fall back to the tree-walker; callers see it in getEngine
+            engine = Engine.TREE;
+            compiled = null;
+        }
+        this.engine = engine;
+        this.bytecode = compiled;
+        this.jit = loaded;
+    }
+
+    /**
+     * Runs the program with a new context for the IO and limits, then
+     * flushes the IO. The returned context's recorder is a
+     * {@link cosmo.interpreter.ScopeHistory} of the final state.
+     */
+    public RunContext run(ProgramIO io, Limits limits) {
+        RunContext context = new RunContext(io, limits);
+        run(context);
+        return context;
+    }
+
+    // Runs the program in the context, which no other run may be using, then flushes its IO
+    public void run(RunContext context) {
+        try {
+            switch (engine) {
+                case VM:
+                    new VirtualMachine(bytecode, context).run();
+                    break;
+                case JIT:
+                    jit.run(context);
+                    break;
+                case AST:
+                    runAst(context);
+                    break;
+                default:
+                    new Interpreter(context).interpret(tree.root(), new HashMap<>(), new Stack<>());
+                    break;
+            }
+        } finally {
+            context.getIO().flush();
+        }
+    }
+
+    // The engine the program runs on, which is TREE for a JIT program too large to compile
+    public Engine getEngine() {
+        return engine;
+    }
+
+    // The engine the program was compiled for, which differs from getEngine after a fallback
+    public Engine getRequestedEngine() {
+        return requested;
+    }
+
+    // Name of a variable ID in the scope history
+    public String getIdentifierName(int id) {
+        return identifiers.name(id);
+    }
+
+    private void runAst(RunContext context) {
+        AstProgram program = idleAsts.poll();
+        if (program == null) {
+            program = AstBuilder.build(tree.root());
+        }
+        program.run(context);
+        // Only kept after a run that finished; a failed one is left for the garbage collector
+        idleAsts.offer(program);
+    }
+}
@@ -0,0 +1,55 @@
+package cosmo;
+
+import cosmo.grammar.LalrParser;
+import cosmo.grammar.ParseListener;
+import cosmo.interpreter.ConstantFolder;
+import cosmo.interpreter.Engine;
+import cosmo.lexeme.IdentifierTable;
+import cosmo.lexeme.Lexer;
+import cosmo.lexeme.Token;
+
+/**
+ * Entry point for running CosmoCode from other JVM code. A source is
+ * lexed, parsed, folded and compiled once into a {@link CompiledProgram},
+ * which is then run as often as needed, writes no files and touches the
+ * console only through the {@link cosmo.interpreter.ProgramIO} it is
+ * given:
+ *
+ * <pre>
+ * CompiledProgram program = CosmoEngine.compile(source);
+ * program.run(new MemoryIO("5"), Limits.DEFAULT);
+ * </pre>
+ *
+ * The same programs are also available through {@code javax.script} as the
+ * "cosmo" engine; see {@link cosmo.script.CosmoScriptEngine}.
+ */
+public final class CosmoEngine {
+    private CosmoEngine() {
+    }
+
+    // Compiles for the engine named by the cosmo.engine system property
+    public static CompiledProgram compile(String source) {
+        return compile(source, Engine.configured());
+    }
+
+    /**
+     * Compiles the source for the engine. A source the grammar rejects
+     * fails with the parser's "SYNTAX ERROR", followed by the lexer's
+     * diagnostics for any invalid tokens, one per line.
+     */
+    public static CompiledProgram compile(String source, Engine engine) {
+        IdentifierTable identifiers = new IdentifierTable();
+        Lexer lexer = new Lexer(source, identifiers);
+        Token[] tokens = lexer.tokenize();
+        LalrParser parser = new LalrParser(tokens, ParseListener.NONE);
+        ParseTreeNode parsed = parser.parse();
+        if (parsed == null) {
+            StringBuilder message = new StringBuilder(parser.getError());
+            for (String diagnostic : lexer.getDiagnostics()) {
+                message.append(System.lineSeparator()).append(diagnostic);
+            }
+            throw new IllegalStateException(message.toString());
+        }
+        return new CompiledProgram(ConstantFolder.foldTree(FlatTree.of(parsed).root()), engine, identifiers);
+    }
+}
@@ -0,0 +1,338 @@
+package cosmo;
+
+import cosmo.grammar.GrammarSymbol;
+import cosmo.grammar.NonTerminal;
+import cosmo.lexeme.Token;
+import cosmo.lexeme.TokenKind;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Parse tree stored as parallel int arrays instead of one object and one
+ * child list per node:
+ * <ul>
+ * <li>{@code kinds[n]}: a {@link NonTerminal} ordinal, or
+ * {@link #TOKEN_KINDS} plus a {@link TokenKind} ordinal for a leaf.</li>
+ * <li>{@code firstChild[n]} and {@code nextSibling[n]}: node indexes, or
+ * {@link #NONE}.</li>
+ * <li>{@code payload[n]}: for a leaf, the index of its token in the token
+ * table; {@link #NONE} otherwise.</li>
+ * </ul>
+ * A node costs four ints, where a {@link ParseTreeNode} costs the node, its
+ * child list and the list's backing array. {@link #root()} adapts the tree
+ * to the {@link ParseTreeNode} API so printTree and the Interpreter run on
+ * it unchanged. Each root view starts a walk that creates at most one view
+ * per node, however often the node is visited.
+ */
+public final class FlatTree {
+    public static final int NONE = -1;
+    public static final int TOKEN_KINDS = NonTerminal.values().length;
+
+    private static final NonTerminal[] NON_TERMINALS = NonTerminal.values();
+    private static final TokenKind[] TOKEN_KIND_VALUES = TokenKind.values();
+
+    private final int root;
+    private final int[] kinds;
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final int[] payload;
+    private final Token[] tokens;
+    // Leaf symbols by token index, rendered on first use; a racing store only renders one twice
+    private final String[] leafSymbols;
+    // Postfix programs of evaluated arithExp nodes, created on the first one; a racing store only costs a recompile
+    private PostfixProgram[] postfix;
+
+    private FlatTree(Builder builder, int root) {
+        this.root = root;
+        this.kinds = Arrays.copyOf(builder.kinds, builder.size);
+        this.firstChild = Arrays.copyOf(builder.firstChild, builder.size);
+        this.nextSibling = Arrays.copyOf(builder.nextSibling, builder.size);
+        this.payload = Arrays.copyOf(builder.payload, builder.size);
+        this.tokens = Arrays.copyOf(builder.tokens, builder.leaves);
+        this.leafSymbols = new String[builder.leaves];
+    }
+
+    // Converts a pointer tree without recursion, so deep trees cannot overflow the stack
+    public static FlatTree of(ParseTreeNode node) {
+        Builder builder = new Builder();
+        ArrayDeque<ParseTreeNode> nodes = new ArrayDeque<>();
+        ArrayDeque<Integer> parents = new ArrayDeque<>();
+        nodes.push(node);
+        parents.push(NONE);
+        int root = NONE;
+        while (!nodes.isEmpty()) {
+            ParseTreeNode current = nodes.pop();
+            int parent = parents.pop();
+            int index = current.getToken() != null
+                    ? builder.leaf(current.getToken())
+                    : builder.node(nonTerminalOf(current));
+            if (parent == NONE) {
+                root = index;
+            } else {
+                builder.append(parent, index);
+            }
+            // Pushed last to first so that children are appended in order
+            List<ParseTreeNode> children = current.getChildren();
+            for (int k = children.size() - 1; k >= 0; k--) {
+                nodes.push(children.get(k));
+                parents.push(index);
+            }
+        }
+        return builder.build(root);
+    }
+
+    public int getRoot() {
+        return root;
+    }
+
+    public int size() {
+        return kinds.length;
+    }
+
+    public int kind(int node) {
+        return kinds[node];
+    }
+
+    public boolean isLeaf(int node) {
+        return kinds[node] >= TOKEN_KINDS;
+    }
+
+    public GrammarSymbol symbol(int node) {
+        int kind = kinds[node];
+        return kind >= TOKEN_KINDS ? TOKEN_KIND_VALUES[kind - TOKEN_KINDS] : NON_TERMINALS[kind];
+    }
+
+    public int firstChild(int node) {
+        return firstChild[node];
+    }
+
+    public int nextSibling(int node) {
+        return nextSibling[node];
+    }
+
+    public Token token(int node) {
+        return payload[node] == NONE ? null : tokens[payload[node]];
+    }
+
+    // Read-only ParseTreeNode view of the root; child views are created on their first visit in this walk
+    public ParseTreeNode root() {
+        return new View(this, new View[kinds.length], root);
+    }
+
+    private String leafSymbol(int node) {
+        String symbol = leafSymbols[payload[node]];
+        if (symbol == null) {
+            symbol = tokens[payload[node]].toString();
+            leafSymbols[payload[node]] = symbol;
+        }
+        return symbol;
+    }
+
+    private static NonTerminal nonTerminalOf(ParseTreeNode node) {
+        if (!(node.getKind() instanceof NonTerminal)) {
+            throw new IllegalArgumentException("TREE ERROR: Node " + node.getSymbol() + " has no grammar symbol.");
+        }
+        return (NonTerminal) node.getKind();
+    }
+
+    /**
+     * Appends nodes to growable arrays. Children may be created before their
+     * parent, as a bottom-up parser does.
+     */
+    public static final class Builder {
+        private int[] kinds = new int[64];
+        private int[] firstChild = new int[64];
+        private int[] nextSibling = new int[64];
+        private int[] payload = new int[64];
+        // Only needed while appending children
+        private int[] lastChild = new int[64];
+        private Token[] tokens = new Token[32];
+        private int size;
+        private int leaves;
+
+        public int leaf(Token token) {
+            if (leaves == tokens.length) {
+                tokens = Arrays.copyOf(tokens, leaves * 2);
+            }
+            tokens[leaves] = token;
+            return add(TOKEN_KINDS + token.getKind().ordinal(), leaves++);
+        }
+
+        public int node(NonTerminal kind) {
+            return add(kind.ordinal(), NONE);
+        }
+
+        public void append(int parent, int child) {
+            if (firstChild[parent] == NONE) {
+                firstChild[parent] = child;
+            } else {
+                nextSibling[lastChild[parent]] = child;
+            }
+            lastChild[parent] = child;
+        }
+
+        public FlatTree build(int root) {
+            return new FlatTree(this, root);
+        }
+
+        private int add(int kind, int value) {
+            if (size == kinds.length) {
+                int capacity = size * 2;
+                kinds = Arrays.copyOf(kinds, capacity);
+                firstChild = Arrays.copyOf(firstChild, capacity);
+                nextSibling = Arrays.copyOf(nextSibling, capacity);
+                payload = Arrays.copyOf(payload, capacity);
+                lastChild = Arrays.copyOf(lastChild, capacity);
+            }
+            kinds[size] = kind;
+            firstChild[size] = NONE;
+            nextSibling[size] = NONE;
+            payload[size] = value;
+            lastChild[size] = NONE;
+            return size++;
+        }
+    }
+
+    private static final class View extends ParseTreeNode {
+        private final FlatTree tree;
+        // The views of this walk by node index, shared by all of them
+        private final View[] views;
+        private final int index;
+        private List<ParseTreeNode> children;
+
+        View(FlatTree tree, View[] views, int index) {
+            this.tree = tree;
+            this.views = views;
+            this.index = index;
+            views[index] = this;
+        }
+
+        // This walk's view of a node
+        View view(int node) {
+            View view = views[node];
+            return view != null ? view : new View(tree, views, node);
+        }
+
+        @Override
+        public String getSymbol() {
+            return tree.isLeaf(index) ? tree.leafSymbol(index) : tree.symbol(index).label();
+        }
+
+        @Override
+        public GrammarSymbol getKind() {
+            return tree.symbol(index);
+        }
+
+        @Override
+        public Token getToken() {
+            return tree.token(index);
+        }
+
+        @Override
+        public List<ParseTreeNode> getChildren() {
+            if (children == null) {
+                children = new Children(this);
+            }
+            return children;
+        }
+
+        // Kept by the tree, since every walk has its own view of the node
+        @Override
+        PostfixProgram getPostfix() {
+            return tree.postfix == null ? null : tree.postfix[index];
+        }
+
+        @Override
+        void setPostfix(PostfixProgram postfix) {
+            if (tree.postfix == null) {
+                tree.postfix = new PostfixProgram[tree.kinds.length];
+            }
+            tree.postfix[index] = postfix;
+        }
+
+        @Override
+        public void setSymbol(String symbol) {
+            throw new UnsupportedOperationException("TREE ERROR: A flat tree is read-only.");
+        }
+
+        @Override
+        public void addChild(ParseTreeNode child) {
+            throw new UnsupportedOperationException("TREE ERROR: A flat tree is read-only.");
+        }
+
+        @Override
+        public ParseTreeNode popChild() {
+            throw new UnsupportedOperationException("TREE ERROR: A flat tree is read-only.");
+        }
+    }
+
+    // Child list that follows the sibling links; sequential get(i) calls resume from the last position
+    private static final class Children extends AbstractList<ParseTreeNode> {
+        private final View owner;
+        private final FlatTree tree;
+        private final int parent;
+        private int size = NONE;
+        private int cursorPosition;
+        private int cursorNode;
+
+        Children(View owner) {
+            this.owner = owner;
+            this.tree = owner.tree;
+            this.parent = owner.index;
+            this.cursorNode = tree.firstChild[parent];
+        }
+
+        @Override
+        public ParseTreeNode get(int position) {
+            if (position < 0 || position >= size()) {
+                throw new IndexOutOfBoundsException("Index " + position + " out of bounds for length " + size);
+            }
+            if (position < cursorPosition) {
+                cursorPosition = 0;
+                cursorNode = tree.firstChild[parent];
+            }
+            while (cursorPosition < position) {
+                cursorNode = tree.nextSibling[cursorNode];
+                cursorPosition++;
+            }
+            return owner.view(cursorNode);
+        }
+
+        @Override
+        public int size() {
+            if (size == NONE) {
+                size = 0;
+                for (int child = tree.firstChild[parent]; child != NONE; child = tree.nextSibling[child]) {
+                    size++;
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public Iterator<ParseTreeNode> iterator() {
+            return new Iterator<ParseTreeNode>() {
+                private int next = tree.firstChild[parent];
+
+                @Override
+                public boolean hasNext() {
+                    return next != NONE;
+                }
+
+                @Override
+                public ParseTreeNode next() {
+                    if (next == NONE) {
+                        throw new NoSuchElementException();
+                    }
+                    ParseTreeNode view = owner.view(next);
+                    next = tree.nextSibling[next];
+                    return view;
+                }
+            };
+        }
+    }
+}
@@ -1,36 +1,57 @@
 package cosmo;
 
+import cosmo.interpreter.Governor;
+import cosmo.interpreter.IntScope;
+import cosmo.interpreter.ProgramIO;
+import cosmo.interpreter.RunContext;
+import cosmo.interpreter.ScopeRecorder;
 import cosmo.interpreter.VariableEntry;
-import java.util.ArrayList;
+import cosmo.lexeme.IdentifierTable;
+import cosmo.lexeme.Token;
 import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Scanner;
 import java.util.Stack;
 
+/**
+ * The reference tree-walking engine. An Interpreter runs programs with
+ * the IO, governor and scope recorder of one {@link RunContext}; separate
+ * instances may run at the same time.
+ */
 public class Interpreter {
-    private static Scanner scanner = new Scanner(System.in);
+    private final ProgramIO io;
+    private final Governor governor;
+    private final ScopeRecorder recorder;
+    // Operand stack shared by every PostfixProgram; one arithExp is evaluated at a time
+    private int[] operands = new int[16];
+
+    public Interpreter(RunContext context) {
+        this.io = context.getIO();
+        this.governor = context.getGovernor();
+        this.recorder = context.getRecorder();
+    }
 
     // Method to enter a new scope
-    private static void enterScope(Stack<HashMap<String, String>> scopes) {
-        // Create a new scope (HashMap) and push it onto the stack
-        HashMap<String, String> newScope = new HashMap<>();
-        scopes.push(newScope);
+    private void enterScope(Stack<IntScope> scopes) {
+        // Create a new scope and push it onto the stack
+        governor.enterScope();
+        scopes.push(new IntScope());
     }
 
     // Method to exit the current scope
-    public static void exitScope(Stack<HashMap<String, String>> scopes) {
+    public void exitScope(Stack<IntScope> scopes) {
         // Check if there is at least one scope to exit
         if (!scopes.isEmpty()) {
             // Pop the current scope from the stack
-            HashMap<String, String> currentScope = scopes.pop();
-            // Add the popped scope to the global scopedVariablesList
-            Parser.scopedVariablesList.add(new HashMap<>(currentScope));
+            IntScope currentScope = scopes.pop();
+            // Hand the popped scope to the run's recorder, if it keeps this one
+            if (recorder.wants(governor.getDepth())) {
+                recorder.record(currentScope.toMap());
+            }
+            governor.exitScope(currentScope.size());
         }
     }
 
     // Method to assign a variable to the current scope
-    public static void assignVariable(String key, String value, Stack<HashMap<String, String>> scopes) {
+    public static void assignVariable(int key, int value, Stack<IntScope> scopes) {
         // Check if there is at least one scope in the stack
         if (!scopes.isEmpty()) {
             // Assign the variable to the current scope (top of the stack)
@@ -38,22 +59,33 @@ public class Interpreter {
         }
     }
 
-    // Method to look up a variable by its identifier in the scopes
-    private static String lookupVariable(String identifier, Stack<HashMap<String, String>> scopes) {
+    // Method to find the innermost scope that holds a variable, or null
+    static IntScope lookupScope(int id, Stack<IntScope> scopes) {
         // Iterate through the scopes starting from the top of the stack
         for (int i = scopes.size() - 1; i >= 0; i--) {
-            // Check if the variable exists in the current scope
-            if (scopes.get(i).containsKey(identifier)) {
-                // Return the value of the variable
-                return scopes.get(i).get(identifier);
+            IntScope scope = scopes.get(i);
+            if (scope.contains(id)) {
+                return scope;
             }
         }
         // Return null if the variable is not found in any scope
         return null;
     }
 
-    public static void interpret(ParseTreeNode root, HashMap<String, VariableEntry> valueTable,
-            Stack<HashMap<String, String>> scopes) {
+    // Updates the value table entry of a variable, creating it on first sight
+    private static void record(HashMap<Integer, VariableEntry> valueTable, int id, String identifier, int value,
+            Stack<IntScope> scopes) {
+        VariableEntry entry = valueTable.get(id);
+        if (entry != null) {
+            entry.setValue(value);
+        } else {
+            valueTable.put(id, new VariableEntry(id, identifier, value, scopes));
+        }
+    }
+
+    // Runs a program or part of one; its output may stay in the context's IO until that is flushed
+    public void interpret(ParseTreeNode root, HashMap<Integer, VariableEntry> valueTable,
+            Stack<IntScope> scopes) {
         if (root == null) {
             return;
         }
@@ -101,66 +133,55 @@ public class Interpreter {
         }
     }
 
-    private static String getLeafValue(ParseTreeNode node) {
+    // The first token under the node, which is the node itself for a leaf
+    static Token getLeafToken(ParseTreeNode node) {
         if (node.getChildren().isEmpty()) {
-            String leafValue = node.getSymbol();
-            if (leafValue.startsWith("id_")) {
-                // Trim the "id_" prefix
-                leafValue = leafValue.substring(3);
-            } else if (leafValue.startsWith("cmt_")) {
-                // Trim the "cmt_" prefix
-                leafValue = leafValue.substring(4);
-            }
-            return leafValue;
+            return node.getToken();
         } else {
-            return getLeafValue(node.getChildren().get(0));
+            return getLeafToken(node.getChildren().get(0));
         }
     }
 
-    private static List<String> getLeaves(ParseTreeNode node) {
-        List<String> leaves = new ArrayList<>();
-        if (node.isLeaf()) {
-            leaves.add(node.getSymbol());
-        } else {
-            for (ParseTreeNode child : node.getChildren()) {
-                leaves.addAll(getLeaves(child));
-            }
-        }
-        return leaves;
+    private static String getLeafValue(ParseTreeNode node) {
+        return getLeafToken(node).getLexeme();
     }
 
-    private static void declaration(ParseTreeNode node, HashMap<String, VariableEntry> valueTable,
-            Stack<HashMap<String, String>> scopes) {
+    private void declaration(ParseTreeNode node, HashMap<Integer, VariableEntry> valueTable,
+            Stack<IntScope> scopes) {
         String identifier = null;
-        String value = null;
+        int id = IdentifierTable.NO_ID;
+        boolean hasValue = false;
+        int value = 0;
 
         for (ParseTreeNode child : node.getChildren()) {
             switch (child.getSymbol()) {
                 case "identifier":
                     if (identifier == null) {
-                        identifier = getLeafValue(child);
+                        Token token = getLeafToken(child);
+                        identifier = token.getLexeme();
+                        id = token.getId();
                     } else {
-                        value = getLeafValue(child);
+                        // A lone identifier is the value
+                        value = evaluate(child, scopes);
+                        hasValue = true;
                     }
                     break;
                 case "comet_literal":
-                    value = getLeafValue(child);
-                    break;
                 case "arithExp":
-                    value = arithmetic(child, valueTable, scopes);
+                    value = evaluate(child, scopes);
+                    hasValue = true;
                     break;
             }
         }
 
-        if (identifier != null && value != null) {
+        if (identifier != null && hasValue) {
             // Check if the identifier is already declared in the current scope
-            if (!scopes.peek().containsKey(identifier)) {
-                // Create a VariableEntry and set its value
-                VariableEntry entry = new VariableEntry(identifier, value, scopes);
-                // Add the VariableEntry to the valueTable
-                valueTable.put(identifier, entry);
+            if (!scopes.peek().contains(id)) {
+                governor.declare();
+                // Record the variable in the valueTable
+                record(valueTable, id, identifier, value, scopes);
                 // Also add the identifier and value to the current scope
-                scopes.peek().put(identifier, value);
+                scopes.peek().put(id, value);
             } else {
                 throw new IllegalStateException(
                         "DECLARATION ERROR: " + identifier + " has already been declared in the current scope.");
@@ -168,191 +189,90 @@ public class Interpreter {
         }
     }
 
-    private static String arithmetic(ParseTreeNode node, HashMap<String, VariableEntry> valueTable,
-            Stack<HashMap<String, String>> scopes) {
-        List<String> leaves = getLeaves(node);
-        int result = 0;
-        String description = "";
-
-        boolean didOperation = true;
-
-        while (didOperation) {
-            didOperation = false;
-
-            // Mult & Div
-            for (int i = 1; i < leaves.size(); i += 2) {
-                String operator = leaves.get(i);
-                if (operator.equals("arith_mult") || operator.equals("arith_div")) {
-                    int firstOperand;
-                    String firstLeaf = leaves.get(i - 1);
-                    if (firstLeaf.startsWith("id_")) {
-                        String firstOp = lookupVariable(firstLeaf.substring(3), scopes);
-                        if (firstOp == null || firstOp == "") {
-                            throw new IllegalStateException(
-                                    "ARITHMETIC ERROR: " + firstLeaf.substring(3) + " is not defined.");
-                        }
-                        firstOperand = Integer.parseInt(firstOp);
-                    } else if (firstLeaf.startsWith("cmt_")) {
-                        String cmt = firstLeaf.substring(4);
-                        firstOperand = Integer.parseInt(cmt);
-                    } else {
-                        firstOperand = Integer.parseInt(firstLeaf);
-                    }
-
-                    String nextLeaf = leaves.get(i + 1);
-                    int nextOperand;
-                    if (nextLeaf.startsWith("id_")) {
-                        String nextOp = lookupVariable(nextLeaf.substring(3), scopes);
-                        if (nextOp == null || nextOp == "") {
-                            throw new IllegalStateException(
-                                    "ARITHMETIC ERROR: " + nextLeaf.substring(3) + " is not defined.");
-                        }
-                        nextOperand = Integer.parseInt(nextOp);
-                    } else if (nextLeaf.startsWith("cmt_")) {
-                        String cmt = nextLeaf.substring(4);
-                        nextOperand = Integer.parseInt(cmt);
-                    } else {
-                        nextOperand = Integer.parseInt(nextLeaf);
-                    }
-
-                    switch (operator) {
-                        case "arith_mult":
-                            result = firstOperand * nextOperand;
-                            break;
-                        case "arith_div":
-                            if (nextOperand == 0) {
-                                throw new IllegalStateException(
-                                        "ARITHMETIC ERROR: Division by zero.");
-                            }
-                            result = firstOperand / nextOperand;
-                            break;
-                    }
-
-                    description = "Arithmetic: " + firstOperand + " " + operator + " " + nextOperand + " = " + result;
-
-                    // remove processed operands and operator
-                    leaves.remove(i - 1);
-                    leaves.remove(i - 1);
-                    leaves.set(i - 1, String.valueOf(result));
-                    i = 0;
-                    didOperation = true;
-                    break;
+    // Evaluates an identifier, comet_literal or arithExp node; arithExp children are (left, operator, right)
+    private int evaluate(ParseTreeNode node, Stack<IntScope> scopes) {
+        switch (node.getSymbol()) {
+            case "identifier":
+                Token token = getLeafToken(node);
+                IntScope scope = lookupScope(token.getId(), scopes);
+                if (scope == null) {
+                    throw new IllegalStateException(
+                            "ARITHMETIC ERROR: " + token.getLexeme() + " is not defined.");
                 }
-            }
+                return scope.get(token.getId());
+            case "comet_literal":
+                // ConstantFolder has checked that it fits in a Comet
+                return Integer.parseInt(getLeafValue(node));
         }
 
-        // Addition & Subtraction
-        String firstLeaf = leaves.get(0);
-        if (firstLeaf.startsWith("id_")) {
-            String resultOp = lookupVariable(firstLeaf.substring(3), scopes);
-            if (resultOp == null || resultOp == "") {
-                throw new IllegalStateException(
-                        "ARITHMETIC ERROR: " + firstLeaf.substring(3) + " is not defined.");
-            }
-            result = Integer.parseInt(resultOp);
-        } else if (firstLeaf.startsWith("id_")) {
-            String cmt = firstLeaf.substring(4);
-            result = Integer.parseInt(cmt);
-        } else {
-            result = Integer.parseInt(firstLeaf);
+        return run(node, scopes);
+    }
+
+    // Runs the postfix program of an arithExp or conditionalExp, compiling it on the first evaluation
+    private int run(ParseTreeNode node, Stack<IntScope> scopes) {
+        PostfixProgram program = node.getPostfix();
+        if (program == null) {
+            program = PostfixProgram.compile(node);
+            node.setPostfix(program);
         }
-        for (int i = 1; i < leaves.size(); i += 2) {
-            String firstOp = Integer.toString(result);
-            String operator = leaves.get(i);
-            String nextLeaf = leaves.get(i + 1);
-            int nextOperand;
-            if (nextLeaf.startsWith("id_")) {
-                String nextOp = lookupVariable(nextLeaf.substring(3), scopes);
-                if (nextOp == null || nextOp == "") {
-                    throw new IllegalStateException(
-                            "ARITHMETIC ERROR: " + nextLeaf.substring(3) + " is not defined.");
-                }
-                nextOperand = Integer.parseInt(nextOp);
-            } else if (nextLeaf.startsWith("cmt_")) {
-                String cmt = nextLeaf.substring(4);
-                nextOperand = Integer.parseInt(cmt);
-            } else {
-                nextOperand = Integer.parseInt(nextLeaf);
-            }
-            switch (operator) {
-                case "arith_plus":
-                    result += nextOperand;
-                    break;
-                case "arith_minus":
-                    result -= nextOperand;
-                    break;
-                default:
-                    System.out.println("Invalid Operator: " + operator + "\n");
-            }
-            description = "Arithmetic: " + firstOp + " " + operator + " " + nextOperand + " = " + result;
+        if (operands.length < program.depth()) {
+            operands = new int[program.depth()];
         }
-
-        return Integer.toString(result);
+        return program.evaluate(scopes, operands);
     }
 
-    private static void assignment(ParseTreeNode node, HashMap<String, VariableEntry> valueTable,
-            Stack<HashMap<String, String>> scopes) {
+    private void assignment(ParseTreeNode node, HashMap<Integer, VariableEntry> valueTable,
+            Stack<IntScope> scopes) {
         String identifier = null;
-        String value = null;
+        int id = IdentifierTable.NO_ID;
+        boolean hasValue = false;
+        int value = 0;
 
         for (ParseTreeNode child : node.getChildren()) {
             switch (child.getSymbol()) {
                 case "identifier":
                     if (identifier == null) {
-                        identifier = getLeafValue(child);
+                        Token token = getLeafToken(child);
+                        identifier = token.getLexeme();
+                        id = token.getId();
                     } else {
-                        value = getLeafValue(child);
+                        // A lone identifier is the value
+                        value = evaluate(child, scopes);
+                        hasValue = true;
                     }
                     break;
                 case "comet_literal":
-                    value = getLeafValue(child);
-                    break;
                 case "arithExp":
-                    value = arithmetic(child, valueTable, scopes);
+                    value = evaluate(child, scopes);
+                    hasValue = true;
                     break;
             }
         }
 
-        if (identifier != null && value != null) {
-            boolean foundInCurrentScope = scopes.peek().containsKey(identifier);
-
-            if (foundInCurrentScope) {
-                // Update the variable in the current scope
-                scopes.peek().put(identifier, value);
-                // Update the valueTable accordingly
-                VariableEntry entry = new VariableEntry(identifier, value, scopes);
-                valueTable.put(identifier, entry);
-            } else {
-                // Check if the identifier exists in outer scopes
-                boolean foundInOuterScope = false;
-                for (int i = scopes.size() - 2; i >= 0; i--) { // Start from the outermost scope
-                    if (scopes.get(i).containsKey(identifier)) {
-                        // Update the variable value in the outer scope
-                        scopes.get(i).put(identifier, value);
-                        // Update the valueTable accordingly
-                        VariableEntry entry = new VariableEntry(identifier, value, scopes);
-                        valueTable.put(identifier, entry);
-                        foundInOuterScope = true;
-                        break;
-                    }
-                }
-
-                if (!foundInOuterScope) {
-                    throw new IllegalStateException("ASSIGNMENT ERROR: " + identifier + " has not been declared.");
-                }
+        if (identifier != null && hasValue) {
+            // Update the variable in the innermost scope that declares it
+            IntScope scope = lookupScope(id, scopes);
+            if (scope == null) {
+                throw new IllegalStateException("ASSIGNMENT ERROR: " + identifier + " has not been declared.");
             }
+            scope.put(id, value);
+            // Update the valueTable accordingly
+            record(valueTable, id, identifier, value, scopes);
         }
     }
 
-    private static void transmission(ParseTreeNode node, HashMap<String, VariableEntry> valueTable,
-            Stack<HashMap<String, String>> scopes) {
+    private void transmission(ParseTreeNode node, HashMap<Integer, VariableEntry> valueTable,
+            Stack<IntScope> scopes) {
         String identifier = null;
+        int id = IdentifierTable.NO_ID;
         String string = null;
 
         for (ParseTreeNode child : node.getChildren()) {
             switch (child.getSymbol()) {
                 case "identifier":
-                    identifier = getLeafValue(child);
+                    Token token = getLeafToken(child);
+                    identifier = token.getLexeme();
+                    id = token.getId();
                     break;
                 case "string":
                     string = getLeafValue(child).replace("\"", "");
@@ -361,9 +281,9 @@ public class Interpreter {
         }
 
         if (identifier != null) {
-            String assignedValue = lookupVariable(identifier, scopes);
-            if (assignedValue != null) {
-                System.out.println(assignedValue);
+            IntScope scope = lookupScope(id, scopes);
+            if (scope != null) {
+                io.transmit(scope.get(id));
             } else {
                 throw new IllegalStateException(
                         "TRANSMISSION ERROR: " + identifier + " has not yet been declared or is out of scope.");
@@ -371,21 +291,23 @@ public class Interpreter {
         }
 
         if (string != null) {
-            System.out.println(string);
+            io.transmit(string);
         }
     }
 
-    private static void reception(ParseTreeNode node, HashMap<String, VariableEntry> valueTable,
-            Stack<HashMap<String, String>> scopes) {
+    private void reception(ParseTreeNode node, HashMap<Integer, VariableEntry> valueTable,
+            Stack<IntScope> scopes) {
         String identifier = null;
+        int id = IdentifierTable.NO_ID;
         String statement = null;
-        String value = null;
 
         for (ParseTreeNode child : node.getChildren()) {
             switch (child.getSymbol()) {
                 case "identifier":
-                    identifier = getLeafValue(child);
-                    if (lookupVariable(identifier, scopes) == null) {
+                    Token token = getLeafToken(child);
+                    identifier = token.getLexeme();
+                    id = token.getId();
+                    if (lookupScope(id, scopes) == null) {
                         throw new IllegalStateException(
                                 "RECEPTION ERROR: " + identifier + " has not yet been declared.");
                     }
@@ -397,142 +319,17 @@ public class Interpreter {
         }
 
         if (identifier != null && statement != null) {
-            if (lookupVariable(identifier, scopes) != null) {
-                System.out.print(statement); // Print user prompt
-                value = scanner.nextLine(); // Read user input using the class-level scanner
-
-                if (value.matches("-?\\d+(\\.\\d+)?")) {
-                    boolean foundInCurrentScope = scopes.peek().containsKey(identifier);
-
-                    if (foundInCurrentScope) {
-                        // Update the variable in the current scope
-                        scopes.peek().put(identifier, value);
-                        // Update the valueTable accordingly
-                        VariableEntry entry = new VariableEntry(identifier, value, scopes);
-                        valueTable.put(identifier, entry);
-                    } else {
-                        // Check if the identifier exists in outer scopes
-                        boolean foundInOuterScope = false;
-                        for (int i = scopes.size() - 2; i >= 0; i--) { // Start from the outermost scope
-                            if (scopes.get(i).containsKey(identifier)) {
-                                // Update the variable value in the outer scope
-                                scopes.get(i).put(identifier, value);
-                                // Update the valueTable accordingly
-                                VariableEntry entry = new VariableEntry(identifier, value, scopes);
-                                valueTable.put(identifier, entry);
-                                foundInOuterScope = true;
-                                break;
-                            }
-                        }
-
-                        if (!foundInOuterScope) {
-                            throw new IllegalStateException(
-                                    "RECEPTION ERROR: " + identifier + " has not been declared.");
-                        }
-                    }
-                } else {
-                    throw new IllegalStateException(
-                            "RECEPTION ERROR: Reception input should be a Comet (integer).");
-                }
-            }
-        }
-    }
-
-    private static Boolean logical(ParseTreeNode node, HashMap<String, VariableEntry> valueTable) {
-        Boolean leftValue = null;
-        Boolean rightValue = null;
-        String operator = null;
-        Boolean result = null;
-
-        for (ParseTreeNode child : node.getChildren()) {
-            switch (child.getSymbol()) {
-                case "relationalExp":
-                    if (leftValue == null) {
-                        leftValue = relational(child, valueTable);
-                    } else {
-                        rightValue = relational(child, valueTable);
-                    }
-                    break;
-                case "logicalOp":
-                    operator = getLeafValue(child);
-
-            }
-        }
-
-        if (operator.equals("logic_and")) {
-            result = leftValue && rightValue;
-        } else if (operator.equals("logic_or")) {
-            result = leftValue || rightValue;
-        }
-        return result;
-    }
-
-    private static Boolean relational(ParseTreeNode node, HashMap<String, VariableEntry> valueTable) {
-        String leftValue = null;
-        String rightValue = null;
-        String operator = null;
-
-        for (ParseTreeNode child : node.getChildren()) {
-            switch (child.getSymbol()) {
-                case "identifier":
-                    String identifier = getLeafValue(child);
-                    VariableEntry entry = valueTable.get(identifier);
-                    if (entry != null) {
-                        if (leftValue == null) {
-                            leftValue = entry.getValue();
-                        } else {
-                            rightValue = entry.getValue();
-                        }
-                    } else {
-                        throw new IllegalStateException(
-                                "Identifier '" + identifier + "' not found in the value table.");
-                    }
-                    break;
-                case "comet_literal":
-                    String literal = getLeafValue(child);
-                    if (leftValue == null) {
-                        leftValue = literal;
-                    } else {
-                        rightValue = literal;
-                    }
-                    break;
-                case "relationalOp":
-                    operator = getLeafValue(child);
-                    break;
-            }
-        }
-
-        if (leftValue == null) {
-            throw new IllegalStateException("RELATIONAL ERROR: Left value is null.");
-        } else if (rightValue == null) {
-            throw new IllegalStateException("RELATIONAL ERROR: Right value is null.");
-        } else if (operator == null) {
-            throw new IllegalStateException("RELATIONAL ERROR: Operator is null.");
-        }
-
-        double left = Double.parseDouble(leftValue);
-        double right = Double.parseDouble(rightValue);
-
-        switch (operator) {
-            case "comp_not":
-                return left != right;
-            case "comp_less":
-                return left < right;
-            case "comp_less_eq":
-                return left <= right;
-            case "comp_great":
-                return left > right;
-            case "comp_great_eq":
-                return left >= right;
-            case "comp_eq":
-                return left == right;
-            default:
-                throw new IllegalStateException("RELATIONAL ERROR: Unknown relational operator: " + operator + ".");
+            // Print the user prompt and read the input; only a whole Comet is accepted
+            int value = io.receive(statement);
+            // Update the variable in the innermost scope that declares it
+            lookupScope(id, scopes).put(id, value);
+            // Update the valueTable accordingly
+            record(valueTable, id, identifier, value, scopes);
         }
     }
 
-    private static void statementProcessor(ParseTreeNode node, HashMap<String, VariableEntry> valueTable,
-            Stack<HashMap<String, String>> scopes) {
+    private void statementProcessor(ParseTreeNode node, HashMap<Integer, VariableEntry> valueTable,
+            Stack<IntScope> scopes) {
         for (ParseTreeNode child : node.getChildren()) { // Iterate over children of stmt
             switch (child.getSymbol()) {
                 case "stmt":
@@ -564,38 +361,30 @@ public class Interpreter {
         }
     }
 
-    private static boolean conditionProcessor(Boolean condition, ParseTreeNode node,
-            HashMap<String, VariableEntry> valueTable) {
-        for (ParseTreeNode condChild : node.getChildren()) { // Iterate over children of conditionalExp
-            switch (condChild.getSymbol()) {
-                case "logicalExp":
-                    condition = logical(condChild, valueTable);
-                    if (!condition) {
-                        // If condition becomes false, no need to check further
-                        break;
-                    }
-                    break;
-                case "relationalExp":
-                    condition = relational(condChild, valueTable);
-                    if (!condition) {
-                        // If condition becomes false, no need to check further
-                        break;
-                    }
-                    break;
+    // Tests a conditionalExp; && and || short-circuit
+    private boolean conditionProcessor(ParseTreeNode node, Stack<IntScope> scopes) {
+        return run(node, scopes) != 0;
+    }
+
+    // The conditionalExp child of a loop, found once rather than on every iteration
+    private static ParseTreeNode conditionOf(ParseTreeNode node) {
+        for (ParseTreeNode child : node.getChildren()) {
+            if (child.getSymbol().equals("conditionalExp")) {
+                return child;
             }
         }
-        return condition;
+        throw new IllegalStateException("LOOP ERROR: " + node.getSymbol() + " has no condition.");
     }
 
-    private static void orbit(ParseTreeNode node, HashMap<String, VariableEntry> valueTable,
-            Stack<HashMap<String, String>> scopes) {
+    private void orbit(ParseTreeNode node, HashMap<Integer, VariableEntry> valueTable,
+            Stack<IntScope> scopes) {
         boolean condition = true;
 
         // Check condition first
         for (ParseTreeNode child : node.getChildren()) {
             switch (child.getSymbol()) {
                 case "conditionalExp":
-                    condition = conditionProcessor(condition, child, valueTable);
+                    condition = conditionProcessor(child, scopes);
                     break; // You should break out of the outer loop after processing the conditionalExp
             }
         }
@@ -608,15 +397,15 @@ public class Interpreter {
         }
     }
 
-    private static void orbitPropel(ParseTreeNode node, HashMap<String, VariableEntry> valueTable,
-            Stack<HashMap<String, String>> scopes) {
+    private void orbitPropel(ParseTreeNode node, HashMap<Integer, VariableEntry> valueTable,
+            Stack<IntScope> scopes) {
         boolean condition = true;
 
         // Check condition first
         for (ParseTreeNode child : node.getChildren()) {
             switch (child.getSymbol()) {
                 case "conditionalExp":
-                    condition = conditionProcessor(condition, child, valueTable);
+                    condition = conditionProcessor(child, scopes);
                     break; // You should break out of the outer loop after processing the conditionalExp
             }
         }
@@ -639,8 +428,8 @@ public class Interpreter {
         }
     }
 
-    private static void orbitNavigatePropel(ParseTreeNode node, HashMap<String, VariableEntry> valueTable,
-            Stack<HashMap<String, String>> scopes) {
+    private void orbitNavigatePropel(ParseTreeNode node, HashMap<Integer, VariableEntry> valueTable,
+            Stack<IntScope> scopes) {
         Boolean condition = null;
         Boolean condition2 = null;
 
@@ -648,13 +437,13 @@ public class Interpreter {
         for (ParseTreeNode child : node.getChildren()) {
             switch (child.getSymbol()) {
                 case "conditionalExp":
-                    condition = conditionProcessor(condition, child, valueTable);
+                    condition = conditionProcessor(child, scopes);
                     break; // You should break out of the outer loop after processing the conditionalExp
                 case "navigateStmt":
                     for (ParseTreeNode navChild : child.getChildren()) { // Iterate over children of conditionalExp
                         switch (navChild.getSymbol()) {
                             case "conditionalExp":
-                                condition2 = conditionProcessor(condition, navChild, valueTable);
+                                condition2 = conditionProcessor(navChild, scopes);
                         }
                     }
                     break; // You should break out of the outer loop after processing the conditionalExp
@@ -689,71 +478,47 @@ public class Interpreter {
         }
     }
 
-    private static final int MAX_ITERATIONS = 200;
-
-    private static void whirl(ParseTreeNode node, HashMap<String, VariableEntry> valueTable,
-            Stack<HashMap<String, String>> scopes) {
-        boolean condition = true;
+    private void whirl(ParseTreeNode node, HashMap<Integer, VariableEntry> valueTable,
+            Stack<IntScope> scopes) {
+        ParseTreeNode conditionalExp = conditionOf(node);
         int loopCount = 0;
 
         // Check condition first
-        for (ParseTreeNode child : node.getChildren()) {
-            switch (child.getSymbol()) {
-                case "conditionalExp":
-                    condition = conditionProcessor(condition, child, valueTable);
-                    break; // You should break out of the outer loop after processing the conditionalExp
-            }
-        }
+        boolean condition = conditionProcessor(conditionalExp, scopes);
 
         enterScope(scopes);
 
         // If condition is true, execute the statements
         while (condition) {
-            if (++loopCount > MAX_ITERATIONS) {
-                throw new IllegalStateException("Maximum loop iterations exceeded");
-            }
+            governor.iterate(++loopCount);
 
             statementProcessor(node, valueTable, scopes);
 
             // Re-evaluate the condition
-            for (ParseTreeNode child : node.getChildren()) {
-                switch (child.getSymbol()) {
-                    case "conditionalExp":
-                        condition = conditionProcessor(condition, child, valueTable);
-                        break;
-                }
-            }
+            condition = conditionProcessor(conditionalExp, scopes);
         }
 
         exitScope(scopes);
     }
 
-    private static void launchWhirl(ParseTreeNode node, HashMap<String, VariableEntry> valueTable,
-            Stack<HashMap<String, String>> scopes) {
-        boolean condition = true;
+    private void launchWhirl(ParseTreeNode node, HashMap<Integer, VariableEntry> valueTable,
+            Stack<IntScope> scopes) {
+        ParseTreeNode conditionalExp = conditionOf(node);
+        boolean condition;
         int loopCount = 0;
 
         enterScope(scopes);
 
         do {
-            if (++loopCount > MAX_ITERATIONS) {
-                throw new IllegalStateException("Maximum loop iterations exceeded");
-            }
+            governor.iterate(++loopCount);
 
             // Execute the statements
             statementProcessor(node, valueTable, scopes);
 
             // Evaluate the condition
-            condition = false; // Reset condition
-            for (ParseTreeNode child : node.getChildren()) {
-                switch (child.getSymbol()) {
-                    case "conditionalExp":
-                        condition = conditionProcessor(condition, child, valueTable);
-                        break;
-                }
-            }
+            condition = conditionProcessor(conditionalExp, scopes);
         } while (condition);
 
         exitScope(scopes);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,227 @@
+package cosmo;
+
+import cosmo.grammar.GrammarSymbol;
+import cosmo.grammar.ParseListener;
+import cosmo.grammar.Production;
+import cosmo.lexeme.Token;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Shift-reduce trace of one parse, written to the parser CSV file.
+ * <ul>
+ * <li>OFF: nothing is recorded, and the file left by an earlier run is
+ * deleted so it cannot be mistaken for this run's trace.</li>
+ * <li>SUMMARY: only the number of shifts, reductions and expressions.</li>
+ * <li>FULL: one row per parser step, streamed to the file as it happens, so
+ * memory use does not grow with the length of the trace.</li>
+ * </ul>
+ * Fields that contain a comma, quote or line break are quoted as in RFC 4180.
+ * The level is read from the {@code cosmo.trace} system property and
+ * defaults to FULL.
+ */
+public class ParseTrace implements ParseListener, AutoCloseable {
+    public enum Level {
+        OFF, SUMMARY, FULL;
+
+        public static Level configured() {
+            String value = System.getProperty("cosmo.trace", "full");
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("TRACE ERROR: Unknown trace level " + value
+                        + ". Expected off, summary or full.");
+            }
+        }
+    }
+
+    private final Level level;
+    private final String filePath;
+    private final Token[] tokens;
+    // Number of tokens before each index whose text needs CSV quoting (FULL only)
+    private int[] quotedBefore;
+    private Writer writer;
+    private IOException failure;
+    private long shifts;
+    private long reductions;
+    private long expressions;
+
+    public ParseTrace(Level level, String filePath, Token[] tokens) {
+        this.level = level;
+        this.filePath = filePath;
+        this.tokens = tokens;
+        if (level == Level.FULL) {
+            quotedBefore = new int[tokens.length + 1];
+            for (int i = 0; i < tokens.length; i++) {
+                quotedBefore[i + 1] = quotedBefore[i] + (needsQuotes(tokens[i].toString()) ? 1 : 0);
+            }
+            try {
+                writer = new BufferedWriter(new FileWriter(filePath), 1 << 16);
+                writeTokens(0, tokens.length, "Input String,");
+                writer.write(",\n,,\nAction,Stack,Remaining Input\n");
+            } catch (IOException e) {
+                fail(e);
+            }
+        } else {
+            // SUMMARY writes the file again once the parse finishes
+            try {
+                Files.deleteIfExists(Paths.get(filePath));
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    @Override
+    public void shift(GrammarSymbol[] stack, int depth, int next) {
+        shifts++;
+        if (writer != null) {
+            try {
+                writer.write("SHIFT,");
+                writeSymbols(stack, depth);
+                writeTokens(next, tokens.length, ",");
+                writer.write('\n');
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+    }
+
+    @Override
+    public void reduce(Production production, GrammarSymbol[] stack, int depth) {
+        reductions++;
+        if (writer != null) {
+            try {
+                writer.write("REDUCE TO ");
+                writeSymbols(stack, depth);
+                writer.write(" <- ");
+                writer.write(production.rhsLabels());
+                writer.write(",,\n");
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+    }
+
+    @Override
+    public void expression(int from, int to, GrammarSymbol[] stack, int depth) {
+        expressions++;
+        if (writer != null) {
+            try {
+                // The stack labels never need quoting, so the whole field is quoted if the tokens are
+                boolean quoted = quotedBefore[to] > quotedBefore[from];
+                if (quoted) {
+                    writer.write('"');
+                }
+                writer.write("REDUCE TO ");
+                writeSymbols(stack, depth);
+                writer.write(" <- ");
+                writeTokenText(from, to, quoted);
+                writer.write(quoted ? "\",,\n" : ",,\n");
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+    }
+
+    // Records the outcome; the summary file is written here
+    public void finish(boolean accepted) {
+        String result = accepted ? "ACCEPT" : "REJECT";
+        try {
+            if (writer != null) {
+                writer.write(result + ",,\n");
+            } else if (level == Level.SUMMARY && failure == null) {
+                try (Writer summary = new BufferedWriter(new FileWriter(filePath))) {
+                    summary.write("Input Tokens," + tokens.length + "\n");
+                    summary.write("Shifts," + shifts + "\n");
+                    summary.write("Reductions," + reductions + "\n");
+                    summary.write("Expressions," + expressions + "\n");
+                    summary.write("Result," + result + "\n");
+                }
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                fail(e);
+            }
+            writer = null;
+        }
+        if (failure != null) {
+            System.err.println("Error writing parser trace to file: " + failure.getMessage());
+        }
+    }
+
+    private void writeSymbols(GrammarSymbol[] stack, int depth) throws IOException {
+        for (int i = 0; i < depth; i++) {
+            if (i > 0) {
+                writer.write(' ');
+            }
+            writer.write(stack[i].label());
+        }
+    }
+
+    // Writes tokens [from, to) as one field after the given prefix
+    private void writeTokens(int from, int to, String prefix) throws IOException {
+        writer.write(prefix);
+        boolean quoted = quotedBefore[to] > quotedBefore[from];
+        if (quoted) {
+            writer.write('"');
+        }
+        writeTokenText(from, to, quoted);
+        if (quoted) {
+            writer.write('"');
+        }
+    }
+
+    private void writeTokenText(int from, int to, boolean quoted) throws IOException {
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                writer.write(' ');
+            }
+            String text = tokens[i].toString();
+            writer.write(quoted ? text.replace("\"", "\"\"") : text);
+        }
+    }
+
+    private static boolean needsQuotes(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Keeps the first error and stops writing; it is reported on close
+    private void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException ignored) {
+                // Already failing
+            }
+            writer = null;
+        }
+    }
+}
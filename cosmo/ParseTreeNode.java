@@ -1,21 +1,53 @@
 package cosmo;
 
+import cosmo.grammar.GrammarSymbol;
+import cosmo.lexeme.Token;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 
 public class ParseTreeNode {
   private String symbol;
+  private GrammarSymbol kind;
+  private Token token;
   private List<ParseTreeNode> children;
+  private PostfixProgram postfix;
+
+  // For subclasses that supply the symbol and children themselves
+  protected ParseTreeNode() {
+  }
 
   public ParseTreeNode(String symbol) {
     this.symbol = symbol;
     this.children = new ArrayList<>();
   }
 
+  public ParseTreeNode(GrammarSymbol kind) {
+    this(kind.label());
+    this.kind = kind;
+  }
+
+  // Leaf node for a shifted token
+  public ParseTreeNode(Token token) {
+    this(token.toString());
+    this.kind = token.getKind();
+    this.token = token;
+  }
+
   public String getSymbol() {
     return symbol;
   }
 
+  public GrammarSymbol getKind() {
+    return kind;
+  }
+
+  public Token getToken() {
+    return token;
+  }
+
   public void setSymbol(String symbol) {
     this.symbol = symbol;
   }
@@ -28,8 +60,17 @@ public class ParseTreeNode {
     this.children.add(child);
   }
 
+  // The Interpreter's compiled form of an arithExp, or null before its first evaluation
+  PostfixProgram getPostfix() {
+    return postfix;
+  }
+
+  void setPostfix(PostfixProgram postfix) {
+    this.postfix = postfix;
+  }
+
   public boolean isLeaf() {
-    return children == null || children.isEmpty();
+    return getChildren() == null || getChildren().isEmpty();
   }
 
   public ParseTreeNode popChild() {
@@ -40,42 +81,12 @@ public class ParseTreeNode {
   }
 
   public String printTree() {
-    return printTreeHelper(this, 0);
-  }
-
-  public void logTree() {
-    logTreeHelper(this, 0);
-  }
-
-  // Recursive helper method to print the parse tree
-  private String printTreeHelper(ParseTreeNode node, int depth) {
-    // Create the string for the current node
-    StringBuilder sb = new StringBuilder();
-    for (int i = 0; i < depth; i++) {
-      sb.append("|____");
-    }
-    sb.append(node.getSymbol()).append("\n");
-
-    // Recursively create strings for children
-    for (ParseTreeNode child : node.getChildren()) {
-      sb.append(printTreeHelper(child, depth + 1));
-    }
-
-    return sb.toString();
-  }
-
-  private void logTreeHelper(ParseTreeNode node, int depth) {
-    // Print the current node
-    StringBuilder sb = new StringBuilder();
-    for (int i = 0; i < depth; i++) {
-      sb.append("|____");
-    }
-    sb.append(node.getSymbol());
-    // System.out.println(sb.toString());
-
-    // Recursively print children
-    for (ParseTreeNode child : node.getChildren()) {
-      logTreeHelper(child, depth + 1);
+    StringWriter out = new StringWriter();
+    try {
+      new ParseTreeWriter(ParseTreeWriter.Format.TEXT).write(this, out);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e); // A StringWriter does not throw
     }
+    return out.toString();
   }
-}
\ No newline at end of file
+}
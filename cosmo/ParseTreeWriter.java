@@ -0,0 +1,203 @@
+package cosmo;
+
+import cosmo.lexeme.Token;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * Writes a parse tree straight to a {@link Writer} as it is walked. The walk
+ * uses an explicit stack, so output is linear in the number of nodes and
+ * deep trees cannot overflow the call stack.
+ * <ul>
+ * <li>TEXT: the {@code |____} indented format of the parse tree files.</li>
+ * <li>JSON: nested objects with a symbol, and either children or the token
+ * text and position.</li>
+ * <li>DOT: a Graphviz digraph with one box per token.</li>
+ * </ul>
+ * The format of the parse tree files is read from the {@code cosmo.tree}
+ * system property and defaults to TEXT.
+ */
+public final class ParseTreeWriter {
+    public enum Format {
+        TEXT("txt"), JSON("json"), DOT("dot");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format configured() {
+            String value = System.getProperty("cosmo.tree", "text");
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("TREE ERROR: Unknown tree format " + value
+                        + ". Expected text, json or dot.");
+            }
+        }
+    }
+
+    private static final String INDENT = "|____";
+
+    private final Format format;
+
+    public ParseTreeWriter(Format format) {
+        this.format = format;
+    }
+
+    // The caller owns the writer and flushes or closes it
+    public void write(ParseTreeNode root, Writer out) throws IOException {
+        switch (format) {
+            case TEXT:
+                writeText(root, out);
+                break;
+            case JSON:
+                writeJson(root, out);
+                break;
+            case DOT:
+                writeDot(root, out);
+                break;
+        }
+    }
+
+    // Encodes as UTF-8 and flushes, but leaves the channel open
+    public void write(ParseTreeNode root, WritableByteChannel channel) throws IOException {
+        Writer out = Channels.newWriter(channel, StandardCharsets.UTF_8);
+        write(root, out);
+        out.flush();
+    }
+
+    private static void writeText(ParseTreeNode root, Writer out) throws IOException {
+        ArrayDeque<Frame> stack = new ArrayDeque<>();
+        writeTextLine(root, 0, out);
+        stack.push(new Frame(root, 0));
+        while (!stack.isEmpty()) {
+            Frame frame = stack.peek();
+            if (!frame.children.hasNext()) {
+                stack.pop();
+                continue;
+            }
+            ParseTreeNode child = frame.children.next();
+            writeTextLine(child, frame.id + 1, out);
+            stack.push(new Frame(child, frame.id + 1));
+        }
+    }
+
+    private static void writeTextLine(ParseTreeNode node, int depth, Writer out) throws IOException {
+        for (int i = 0; i < depth; i++) {
+            out.write(INDENT);
+        }
+        out.write(node.getSymbol());
+        out.write('\n');
+    }
+
+    private static void writeJson(ParseTreeNode root, Writer out) throws IOException {
+        ArrayDeque<Frame> stack = new ArrayDeque<>();
+        if (openJson(root, out)) {
+            stack.push(new Frame(root, 0));
+        }
+        while (!stack.isEmpty()) {
+            Frame frame = stack.peek();
+            if (!frame.children.hasNext()) {
+                out.write("]}");
+                stack.pop();
+                continue;
+            }
+            if (frame.id++ > 0) {
+                out.write(',');
+            }
+            ParseTreeNode child = frame.children.next();
+            if (openJson(child, out)) {
+                stack.push(new Frame(child, 0));
+            }
+        }
+        out.write('\n');
+    }
+
+    // Writes a leaf completely, or opens an inner node's children array; returns whether it was opened
+    private static boolean openJson(ParseTreeNode node, Writer out) throws IOException {
+        out.write("{\"symbol\":");
+        writeJsonString(node.getSymbol(), out);
+        Token token = node.getToken();
+        if (token != null) {
+            out.write(",\"text\":");
+            writeJsonString(token.getLexeme(), out);
+            out.write(",\"line\":" + token.getLine() + ",\"column\":" + token.getColumn() + "}");
+            return false;
+        }
+        out.write(",\"children\":[");
+        return true;
+    }
+
+    private static void writeJsonString(String text, Writer out) throws IOException {
+        out.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20) {
+                out.write(String.format("\\u%04x", (int) c));
+            } else {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+
+    private static void writeDot(ParseTreeNode root, Writer out) throws IOException {
+        out.write("digraph ParseTree {\n");
+        ArrayDeque<Frame> stack = new ArrayDeque<>();
+        int nodes = 0;
+        writeDotNode(root, nodes++, out);
+        stack.push(new Frame(root, 0));
+        while (!stack.isEmpty()) {
+            Frame frame = stack.peek();
+            if (!frame.children.hasNext()) {
+                stack.pop();
+                continue;
+            }
+            ParseTreeNode child = frame.children.next();
+            int id = nodes++;
+            writeDotNode(child, id, out);
+            out.write("  n" + frame.id + " -> n" + id + ";\n");
+            stack.push(new Frame(child, id));
+        }
+        out.write("}\n");
+    }
+
+    private static void writeDotNode(ParseTreeNode node, int id, Writer out) throws IOException {
+        out.write("  n" + id + " [label=\"");
+        String label = node.getSymbol();
+        for (int i = 0; i < label.length(); i++) {
+            char c = label.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+            }
+            out.write(c == '\n' ? ' ' : c);
+        }
+        out.write(node.getToken() != null ? "\", shape=box];\n" : "\"];\n");
+    }
+
+    // A node whose children are being written; id is the depth, child count or DOT node number
+    private static final class Frame {
+        final Iterator<ParseTreeNode> children;
+        int id;
+
+        Frame(ParseTreeNode node, int id) {
+            this.children = node.getChildren().iterator();
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package cosmo;
+
+import cosmo.interpreter.IntScope;
+import cosmo.lexeme.Token;
+import cosmo.lexeme.TokenKind;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Stack;
+
+/**
+ * An arithExp or conditionalExp of the tree-walking Interpreter compiled
+ * to postfix order. The Interpreter compiles each one the first time it
+ * evaluates it and keeps the program with the node. Later evaluations run
+ * the program in one pass over an operand stack the caller supplies, so
+ * they allocate nothing.
+ * <p>
+ * A comparison leaves 1 or 0. {@code &&} and {@code ||} jump over their
+ * right operand once the left one decides the result, so they
+ * short-circuit at any nesting depth. Operands and operators run in the
+ * order the recursive evaluation used. A program fails at the same point,
+ * with the same error, as that evaluation did.
+ */
+final class PostfixProgram {
+    private static final int PUSH = 0;
+    private static final int LOAD = 1;
+    private static final int ADD = 2;
+    private static final int SUB = 3;
+    private static final int MUL = 4;
+    private static final int DIV = 5;
+    // A literal out of range for a Comet, which only fails once it is reached
+    private static final int PARSE = 6;
+    private static final int NE = 7;
+    private static final int LT = 8;
+    private static final int LE = 9;
+    private static final int GT = 10;
+    private static final int GE = 11;
+    private static final int EQ = 12;
+    // Jump to the operand if the top is 0 (AND) or not 0 (OR), keeping it as the result; else pop it
+    private static final int AND = 13;
+    private static final int OR = 14;
+
+    private final int[] ops;
+    private final int[] operands;
+    // The error message of each LOAD and the literal of each PARSE
+    private final String[] texts;
+    private final int depth;
+
+    private PostfixProgram(Builder builder) {
+        int size = builder.ops.size();
+        this.ops = new int[size];
+        this.operands = new int[size];
+        this.texts = builder.texts.toArray(new String[0]);
+        for (int i = 0; i < size; i++) {
+            ops[i] = builder.ops.get(i);
+            operands[i] = builder.operands.get(i);
+        }
+        this.depth = builder.maxDepth;
+    }
+
+    // Compiles a conditionalExp, or an arithExp whose children are (left, operator, right)
+    static PostfixProgram compile(ParseTreeNode node) {
+        Builder builder = new Builder();
+        if (node.getSymbol().equals("conditionalExp")) {
+            // conditionalExp -> ( relationalExp | logicalExp )
+            builder.condition(node.getChildren().get(1));
+        } else {
+            builder.arithmetic(node, "ARITHMETIC ERROR: ");
+        }
+        return new PostfixProgram(builder);
+    }
+
+    // Operand stack entries evaluate needs
+    int depth() {
+        return depth;
+    }
+
+    // The value of an arithExp, or 1 if a conditionalExp holds and 0 if not
+    int evaluate(Stack<IntScope> scopes, int[] stack) {
+        int top = -1;
+        for (int pc = 0; pc < ops.length; pc++) {
+            switch (ops[pc]) {
+                case PUSH:
+                    stack[++top] = operands[pc];
+                    break;
+                case LOAD: {
+                    IntScope scope = Interpreter.lookupScope(operands[pc], scopes);
+                    if (scope == null) {
+                        throw new IllegalStateException(texts[pc]);
+                    }
+                    stack[++top] = scope.get(operands[pc]);
+                    break;
+                }
+                case ADD:
+                    top--;
+                    stack[top] = stack[top] + stack[top + 1];
+                    break;
+                case SUB:
+                    top--;
+                    stack[top] = stack[top] - stack[top + 1];
+                    break;
+                case MUL:
+                    top--;
+                    stack[top] = stack[top] * stack[top + 1];
+                    break;
+                case DIV:
+                    top--;
+                    if (stack[top + 1] == 0) {
+                        throw new IllegalStateException("ARITHMETIC ERROR: Division by zero.");
+                    }
+                    stack[top] = stack[top] / stack[top + 1];
+                    break;
+                case PARSE:
+                    stack[++top] = Integer.parseInt(texts[pc]);
+                    break;
+                case NE:
+                    top--;
+                    stack[top] = stack[top] != stack[top + 1] ? 1 : 0;
+                    break;
+                case LT:
+                    top--;
+                    stack[top] = stack[top] < stack[top + 1] ? 1 : 0;
+                    break;
+                case LE:
+                    top--;
+                    stack[top] = stack[top] <= stack[top + 1] ? 1 : 0;
+                    break;
+                case GT:
+                    top--;
+                    stack[top] = stack[top] > stack[top + 1] ? 1 : 0;
+                    break;
+                case GE:
+                    top--;
+                    stack[top] = stack[top] >= stack[top + 1] ? 1 : 0;
+                    break;
+                case EQ:
+                    top--;
+                    stack[top] = stack[top] == stack[top + 1] ? 1 : 0;
+                    break;
+                case AND:
+                    if (stack[top] == 0) {
+                        pc = operands[pc] - 1;
+                    } else {
+                        top--;
+                    }
+                    break;
+                default:
+                    if (stack[top] != 0) {
+                        pc = operands[pc] - 1;
+                    } else {
+                        top--;
+                    }
+                    break;
+            }
+        }
+        return stack[0];
+    }
+
+    private static final class Builder {
+        private final List<Integer> ops = new ArrayList<>();
+        private final List<Integer> operands = new ArrayList<>();
+        private final List<String> texts = new ArrayList<>();
+        private int depth;
+        private int maxDepth;
+
+        // A relationalExp or logicalExp
+        void condition(ParseTreeNode node) {
+            List<ParseTreeNode> children = node.getChildren();
+            TokenKind operator = children.get(1).getToken().getKind();
+
+            if (node.getSymbol().equals("logicalExp")) {
+                condition(children.get(0));
+                int jump;
+                if (operator == TokenKind.AND) {
+                    jump = add(AND, 0, null, -1);
+                } else if (operator == TokenKind.OR) {
+                    jump = add(OR, 0, null, -1);
+                } else {
+                    throw new IllegalStateException("LOGICAL ERROR: Unknown logical operator: " + operator + ".");
+                }
+                condition(children.get(2));
+                operands.set(jump, ops.size());
+                return;
+            }
+
+            comparisonOperand(children.get(0));
+            comparisonOperand(children.get(2));
+            switch (operator) {
+                case NOT:
+                    add(NE, 0, null, -1);
+                    break;
+                case LESS:
+                    add(LT, 0, null, -1);
+                    break;
+                case LESS_EQ:
+                    add(LE, 0, null, -1);
+                    break;
+                case GREAT:
+                    add(GT, 0, null, -1);
+                    break;
+                case GREAT_EQ:
+                    add(GE, 0, null, -1);
+                    break;
+                case EQ:
+                    add(EQ, 0, null, -1);
+                    break;
+                default:
+                    throw new IllegalStateException(
+                            "RELATIONAL ERROR: Unknown relational operator: " + operator + ".");
+            }
+        }
+
+        // A variable compared directly is reported as a relational error, one inside arithmetic as arithmetic
+        private void comparisonOperand(ParseTreeNode node) {
+            arithmetic(node, node.getSymbol().equals("identifier") ? "RELATIONAL ERROR: " : "ARITHMETIC ERROR: ");
+        }
+
+        // An identifier, comet_literal or arithExp; prefix starts the error for an undefined variable
+        void arithmetic(ParseTreeNode node, String prefix) {
+            switch (node.getSymbol()) {
+                case "identifier": {
+                    Token token = Interpreter.getLeafToken(node);
+                    add(LOAD, token.getId(), prefix + token.getLexeme() + " is not defined.", 1);
+                    return;
+                }
+                case "comet_literal": {
+                    String literal = Interpreter.getLeafToken(node).getLexeme();
+                    try {
+                        add(PUSH, Integer.parseInt(literal), null, 1);
+                    } catch (NumberFormatException e) {
+                        add(PARSE, 0, literal, 1);
+                    }
+                    return;
+                }
+            }
+            List<ParseTreeNode> children = node.getChildren();
+            arithmetic(children.get(0), "ARITHMETIC ERROR: ");
+            arithmetic(children.get(2), "ARITHMETIC ERROR: ");
+            TokenKind operator = children.get(1).getToken().getKind();
+            switch (operator) {
+                case PLUS:
+                    add(ADD, 0, null, -1);
+                    break;
+                case MINUS:
+                    add(SUB, 0, null, -1);
+                    break;
+                case MULT:
+                    add(MUL, 0, null, -1);
+                    break;
+                case DIV:
+                    add(DIV, 0, null, -1);
+                    break;
+                default:
+                    throw new IllegalStateException(
+                            "ARITHMETIC ERROR: Unknown arithmetic operator: " + operator + ".");
+            }
+        }
+
+        // Appends a step that changes the stack depth by effect, returning its position
+        private int add(int op, int operand, String text, int effect) {
+            ops.add(op);
+            operands.add(operand);
+            texts.add(text);
+            depth += effect;
+            maxDepth = Math.max(maxDepth, depth);
+            return ops.size() - 1;
+        }
+    }
+}
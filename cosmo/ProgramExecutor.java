@@ -0,0 +1,211 @@
+package cosmo;
+
+import cosmo.interpreter.Engine;
+import cosmo.interpreter.Governor;
+import cosmo.interpreter.Limits;
+import cosmo.interpreter.MemoryIO;
+import cosmo.interpreter.ProgramIO;
+import cosmo.interpreter.RunContext;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs independent CosmoCode programs at the same time. Each job compiles
+ * and runs its own source with its own {@link RunContext},
+ * so jobs share no mutable state and need no locking.
+ * <p>
+ * Jobs are CPU-bound, so by default they run on one platform thread per
+ * core; more threads than cores would only add switching. Any other
+ * ExecutorService may be supplied instead, such as a thread per task.
+ * <p>
+ * The engines do not check for interruption, so cancelling a returned
+ * future only stops a run that has not started yet. To stop a run that
+ * is already going, submit it with its own {@link RunContext} and call
+ * {@link Governor#cancel()} on the context's governor. The run then fails
+ * with a {@link cosmo.interpreter.ResourceLimitException} at its next poll.
+ * {@link #close()} does the same for every run still going once it has
+ * waited a minute.
+ */
+public final class ProgramExecutor implements AutoCloseable {
+    private static final long CLOSE_WAIT_SECONDS = 60;
+
+    private final Engine engine;
+    private final Limits limits;
+    private final ExecutorService threads;
+    // Governors of the runs going now, for close to cancel
+    private final Set<Governor> running = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelling;
+
+    public ProgramExecutor(Engine engine, Limits limits) {
+        this(engine, limits, Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()));
+    }
+
+    public ProgramExecutor(Engine engine, Limits limits, ExecutorService threads) {
+        this.engine = engine;
+        this.limits = limits;
+        this.threads = threads;
+    }
+
+    /**
+     * Queues a run of the source. Its limits apply from when the run starts.
+     * The future yields the finished run's context, or fails with the
+     * run's error.
+     */
+    public Future<RunContext> submit(String source, ProgramIO io) {
+        return queue(() -> new RunContext(io, limits), context -> run(source, engine, context));
+    }
+
+    /**
+     * Queues a run of the source in the caller's context, so the caller can
+     * cancel it through the context's governor at any time. The governor's
+     * timeout counts from when the governor was made, including time spent
+     * in the queue.
+     */
+    public Future<RunContext> submit(String source, RunContext context) {
+        return queue(() -> context, queued -> run(source, engine, queued));
+    }
+
+    // Queues a run of an already compiled program, which runs on its own engine
+    public Future<RunContext> submit(CompiledProgram program, ProgramIO io) {
+        return queue(() -> new RunContext(io, limits), program::run);
+    }
+
+    // Queues a run of an already compiled program in the caller's context
+    public Future<RunContext> submit(CompiledProgram program, RunContext context) {
+        return queue(() -> context, program::run);
+    }
+
+    /**
+     * Waits for the queued runs to finish. Runs still going after a minute
+     * are cancelled through their governors, and runs that have not started
+     * are dropped, their futures cancelled.
+     */
+    @Override
+    public void close() {
+        threads.shutdown();
+        try {
+            if (!threads.awaitTermination(CLOSE_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                cancelAll();
+                // A cancelled run stops at its next poll
+                threads.awaitTermination(CLOSE_WAIT_SECONDS, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            cancelAll();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void cancelAll() {
+        cancelling = true;
+        for (Runnable queued : threads.shutdownNow()) {
+            if (queued instanceof Future) {
+                ((Future<?>) queued).cancel(false);
+            }
+        }
+        for (Governor governor : running) {
+            governor.cancel();
+        }
+    }
+
+    // Runs the job on a pool thread with its governor where close can reach it
+    private Future<RunContext> queue(Supplier<RunContext> contexts, Consumer<RunContext> job) {
+        return threads.submit(() -> {
+            RunContext context = contexts.get();
+            Governor governor = context.getGovernor();
+            running.add(governor);
+            // A run that starts while close is cancelling is cancelled too
+            if (cancelling) {
+                governor.cancel();
+            }
+            try {
+                job.accept(context);
+                return context;
+            } finally {
+                running.remove(governor);
+            }
+        });
+    }
+
+    // Compiles and runs one program on the calling thread, then flushes its IO
+    public static RunContext run(String source, Engine engine, RunContext context) {
+        CosmoEngine.compile(source, engine).run(context);
+        return context;
+    }
+
+    /**
+     * Runs every file in the directory concurrently with the configured
+     * engine and limits. Each program's output, or its error, is printed in
+     * file name order. Reception reads the lines of the file named by the
+     * {@code cosmo.input} system property, if any, afresh for each program.
+     */
+    public static void runBatch(Path directory) {
+        List<Path> files;
+        List<String> input;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            String inputFile = System.getProperty("cosmo.input");
+            input = inputFile == null ? Collections.emptyList() : Files.readAllLines(Paths.get(inputFile.trim()));
+        } catch (IOException e) {
+            throw new IllegalStateException("BATCH ERROR: Cannot read " + directory + ": " + e.getMessage(), e);
+        }
+
+        long start = System.nanoTime();
+        List<Future<RunContext>> runs = new ArrayList<>();
+        List<MemoryIO> outputs = new ArrayList<>();
+        int failed = 0;
+        try (ProgramExecutor executor = new ProgramExecutor(Engine.configured(), Limits.configured())) {
+            for (Path file : files) {
+                MemoryIO io = new MemoryIO(new ArrayDeque<>(input));
+                outputs.add(io);
+                try {
+                    runs.add(executor.submit(Files.readString(file), io));
+                } catch (IOException e) {
+                    runs.add(null);
+                }
+            }
+            for (int i = 0; i < files.size(); i++) {
+                System.out.println("== " + files.get(i).getFileName());
+                String error = null;
+                try {
+                    if (runs.get(i) == null) {
+                        error = "BATCH ERROR: Cannot read " + files.get(i) + ".";
+                    } else {
+                        runs.get(i).get();
+                    }
+                } catch (ExecutionException e) {
+                    error = String.valueOf(e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                System.out.print(outputs.get(i).getOutput());
+                if (error != null) {
+                    System.out.println(error);
+                    failed++;
+                }
+                // Release the finished run's output and history
+                outputs.set(i, null);
+                runs.set(i, null);
+            }
+        }
+        System.out.println(files.size() + " programs, " + failed + " failed, "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+}
@@ -2,20 +2,19 @@ package cosmo;
 
 import cosmo.lexeme.*;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class Tokenizer {
 
-    static HashSet<String> commentIndicators = new HashSet<>(Arrays.asList("/*", "*/"));
-    static String[] arrayInput;
-    static int counter = 0;
-    static int totalErrors = 0;
+    static final Set<String> commentIndicators = Set.of("/*", "*/");
+    private int totalErrors = 0;
+    private IdentifierTable identifiers = new IdentifierTable();
 
     public void processInputs() {
         Scanner scanner = new Scanner(System.in);
@@ -54,10 +53,10 @@ public class Tokenizer {
             }
 
             // Process the input file if it exists
-            String[] tokens = processInput(inputFile.getPath(),
+            Token[] tokens = processInput(inputFile.getPath(),
                     "./output/tokenizer/output" + choice + ".txt",
                     "./output/symbol_table/output" + choice + ".txt");
-            Parser parser = new Parser(tokens);
+            Parser parser = new Parser(tokens, identifiers);
             parser.parse(choice); // Invoke the parsing process
 
             System.out.println("\n-------------------------------------------------\r\n");
@@ -79,30 +78,25 @@ public class Tokenizer {
         scanner.close();
     }
 
-    public String[] processInput(String inputPath, String outputPath, String symbolTablePath) {
-        String input = readInput(inputPath);
+    public Token[] processInput(String inputPath, String outputPath, String symbolTablePath) {
+        CharSequence input = readInput(inputPath);
         System.out.println("\n=================================================\n");
         System.out.println("Input from " + inputPath);
         // System.out.println("Input from " + inputPath + ":\n" + input);
 
-        // split into array
-        arrayInput = input.trim().split("\\s+");
-        // System.out.println("\nInput Converted to String Array:\n" +
-        // Arrays.toString(arrayInput));
-
-        // Get symbol table
-        Map<String, String> symbolTable = SymbolTable.createSymbolTableMap();
+        // Fresh identifier table for this input
+        identifiers = new IdentifierTable();
 
         // pass to tokenizer
-        String[] tokenized = tokenize(arrayInput, symbolTable);
+        Token[] tokenized = tokenize(input, identifiers);
         // System.out.println("\nTokenized Input:\n" + Arrays.toString(tokenized));
 
         // Print symbol table to console
         // System.out.println("\nSymbol Table:\n");
-        // System.out.println(formatMap(symbolTable));
+        // System.out.println(formatMap(SymbolTable.createSymbolTableMap()));
 
         // Write symbol table to file
-        writeSymbolTableToFile(symbolTablePath, symbolTable);
+        writeSymbolTableToFile(symbolTablePath, identifiers);
 
         System.out.println("\nTotal number of tokenizing errors:\n" + totalErrors);
         System.out.println("\n-------------------------------------------------\r\n");
@@ -111,89 +105,112 @@ public class Tokenizer {
         return tokenized;
     }
 
-    public String readInput(String inputPath) {
-        StringBuilder inputBuilder = new StringBuilder();
-        try (BufferedReader br = new BufferedReader(new FileReader(inputPath))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                inputBuilder.append(line).append("\n");
-            }
+    // Maps the file instead of copying it onto the heap
+    public CharSequence readInput(String inputPath) {
+        try {
+            return MappedSource.open(inputPath);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return "";
+        }
+    }
+
+    /**
+     * Writes the token and symbol table files of an input without parsing or
+     * running it. Tokens are scanned from the mapped file and written as they
+     * are produced, so memory holds the identifiers but never the source or
+     * the token list; this suits inputs too large for the interactive menu.
+     */
+    public void streamInput(String inputPath) {
+        String name = Paths.get(inputPath).getFileName().toString();
+        identifiers = new IdentifierTable();
+        MappedSource source;
+        try {
+            source = MappedSource.open(inputPath);
         } catch (IOException e) {
             e.printStackTrace();
+            return;
         }
-        return inputBuilder.toString();
+        Lexer lexer = Lexer.streaming(source, identifiers);
+        // Diagnostics are printed as tokens are written rather than collected
+        Iterator<Token> tokens = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return lexer.hasNext();
+            }
+
+            @Override
+            public Token next() {
+                Token token = lexer.next();
+                reportErrors(lexer.getErrorCount(), lexer.drainDiagnostics());
+                return token;
+            }
+        };
+        long count = writeOutputToFile("./output/tokenizer/" + name, tokens);
+        writeSymbolTableToFile("./output/symbol_table/" + name, identifiers);
+        System.out.println("Input from " + inputPath + ": " + count + " tokens, " + totalErrors + " tokenizing errors");
+    }
+
+    // Identifiers interned by the last processInput call
+    public IdentifierTable getIdentifiers() {
+        return identifiers;
+    }
+
+    public void writeOutputToFile(String outputPath, Token[] tokenizedInput) {
+        writeOutputToFile(outputPath, Arrays.asList(tokenizedInput).iterator());
     }
 
-    public void writeOutputToFile(String outputPath, String[] tokenizedInput) {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(outputPath))) {
-            for (String token : tokenizedInput) {
-                bw.write(token);
+    // Writes tokens as they are produced; pass a Lexer to stream straight from the source
+    public long writeOutputToFile(String outputPath, Iterator<Token> tokens) {
+        long count = 0;
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(outputPath), 1 << 16)) {
+            while (tokens.hasNext()) {
+                bw.write(tokens.next().toString());
                 bw.newLine();
+                count++;
             }
             // System.out.println("Tokenized input written to " + outputPath);
         } catch (IOException e) {
             e.printStackTrace();
         }
+        return count;
     }
 
-    private void writeSymbolTableToFile(String outputPath, Map<String, String> symbolTable) {
+    // Fixed lexemes first, then every identifier in ID order
+    private void writeSymbolTableToFile(String outputPath, IdentifierTable identifiers) {
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputPath))) {
             writer.write("Symbol Table:\n");
-            for (Map.Entry<String, String> entry : symbolTable.entrySet()) {
+            for (Map.Entry<String, String> entry : SymbolTable.createSymbolTableMap().entrySet()) {
                 writer.write(entry.getKey() + " : " + entry.getValue() + "\n");
             }
+            for (int id = 0; id < identifiers.size(); id++) {
+                String name = identifiers.name(id);
+                writer.write(name + " : " + TokenKind.IDENTIFIER.getPrefix() + name + "\n");
+            }
             // System.out.println("Symbol table written to: " + outputPath);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    public String[] tokenize(String[] input, Map<String, String> symbolTable) {
-        ArrayList<String> tokenList = new ArrayList<>();
-        counter = 0;
-        totalErrors = 0;
-
-        for (int i = 0; i < input.length; i++) {
-            if (ReservedWords.createReservedWordsMap().containsKey(input[i])) { // Keyword
-                tokenList.add(ReservedWords.createReservedWordsMap().get(input[i]));
-            } else if (input[i].matches("-?\\d+")) { // Comet
-                tokenList.add("cmt_" + input[i]);
-            } else if (Separator.createSeparatorMap().containsKey(input[i])) { // Separator
-                tokenList.add("sep_" + Separator.createSeparatorMap().get(input[i]));
-            } else if (Comparison.createComparisonMap().containsKey(input[i])) { // Comparison Operator
-                tokenList.add("comp_" + Comparison.createComparisonMap().get(input[i]));
-            } else if (LogicalOperators.createLogicalMap().containsKey(input[i])) { // Logical Operator
-                tokenList.add("logic_" + LogicalOperators.createLogicalMap().get(input[i]));
-            } else if (ArithmeticOperators.createArithmeticMap().containsKey(input[i])) { // Arithmetic Operator
-                tokenList.add("arith_" + ArithmeticOperators.createArithmeticMap().get(input[i]));
-            } else if (input[i].matches("[a-zA-Z0-9_]+")) { // Identifier / ?Variable?
-                if (isReservedWord(input[i])) {
-                    counter++;
-                    tokenList.add("invalid_token_" + counter);
-                    totalErrors++;
-                }
-                tokenList.add("id_" + input[i]);
-                if (!symbolTable.containsKey(input[i])) {
-                    symbolTable.put(input[i], "id_" + input[i]);
-                }
-            } else if (input[i].matches("\\s+")) { // White Space
-            } else if (input[i].startsWith("\"")) { // String
-                String stringConst = "";
-                for (; !input[i].endsWith("\""); i++) {
-                    stringConst = stringConst + input[i] + " ";
-                }
-                tokenList.add(stringConst + input[i]);
-            } else if (input[i].startsWith("/*")) { // Comment
-                for (; !input[i].endsWith("*/"); i++)
-                    ;
-                // tokenList.add("comment");
-            } else { // Add more cases here
-                counter++;
-                tokenList.add("invalid_token_" + counter);
-                totalErrors++;
-            }
+    public Token[] tokenize(CharSequence input, IdentifierTable identifiers) {
+        if (input.length() >= ParallelLexer.MIN_PARALLEL_LENGTH && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            ParallelLexer lexer = new ParallelLexer(input, identifiers, ForkJoinPool.commonPool());
+            Token[] tokens = lexer.tokenize();
+            reportErrors(lexer.getErrorCount(), lexer.getDiagnostics());
+            return tokens;
+        }
+        Lexer lexer = new Lexer(input, identifiers);
+        Token[] tokens = lexer.tokenize();
+        reportErrors(lexer.getErrorCount(), lexer.getDiagnostics());
+        return tokens;
+    }
+
+    private void reportErrors(int errorCount, List<String> diagnostics) {
+        totalErrors = errorCount;
+        for (String diagnostic : diagnostics) {
+            System.err.println(diagnostic);
         }
-        return tokenList.toArray(new String[0]);
     }
 
     private String formatMap(Map<String, String> map) {
@@ -213,22 +230,4 @@ public class Tokenizer {
 
         return formattedOutput.toString();
     }
-
-    private Boolean isReservedWord(String string) {
-        List<String> keysList = getKeysList(ReservedWords.createReservedWordsMap());
-        for (int i = 0; i < keysList.size(); i++) {
-            keysList.set(i, keysList.get(i).toLowerCase());
-        }
-        return keysList.contains(string);
-    }
-
-    private List<String> getKeysList(Map<String, String> map) {
-        List<String> keysList = new ArrayList<>();
-
-        for (Map.Entry<String, String> entry : map.entrySet()) {
-            keysList.add(entry.getKey());
-        }
-
-        return keysList;
-    }
 }
@@ -0,0 +1,175 @@
+package cosmo.grammar;
+
+import cosmo.ParseTreeNode;
+import cosmo.lexeme.Token;
+import cosmo.lexeme.TokenKind;
+
+/**
+ * Pratt parser for arithmetic, relational and logical expressions, invoked
+ * by {@link LalrParser} wherever the grammar expects an expression. It
+ * builds a binary tree in which every arithExp, relationalExp and logicalExp
+ * node has the children (left operand, operator token, right operand).
+ * Parentheses only group and leave no node behind.
+ * <p>
+ * Binding powers, loosest first: ||, &&, comparisons, + -, * /. Operators
+ * of the same power associate to the left; comparisons do not chain.
+ */
+final class ExpressionParser {
+    private static final int OR = 1;
+    private static final int AND = 2;
+    private static final int COMPARISON = 3;
+    private static final int ADDITIVE = 4;
+    private static final int MULTIPLICATIVE = 5;
+
+    private final Token[] tokens;
+    private int pos;
+    private String error;
+
+    ExpressionParser(Token[] tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * Parses one expression starting at token {@code from}. An arithExp goal
+     * yields an identifier, comet_literal or arithExp node; a condition goal
+     * yields a relationalExp or logicalExp node.
+     *
+     * @return the expression, or null on a syntax error (see {@link #getError()})
+     */
+    ParseTreeNode parse(int from, NonTerminal goal) {
+        pos = from;
+        error = null;
+        ParseTreeNode expression = expression(OR);
+        if (expression == null) {
+            return null;
+        }
+        if (isCondition(expression) != (goal == NonTerminal.CONDITION)) {
+            return fail(from, goal == NonTerminal.CONDITION
+                    ? "Expected a comparison or logical expression"
+                    : "Expected an arithmetic expression");
+        }
+        return expression;
+    }
+
+    // Index of the first token after the last parsed expression
+    int end() {
+        return pos;
+    }
+
+    String getError() {
+        return error;
+    }
+
+    private ParseTreeNode expression(int minPower) {
+        ParseTreeNode left = primary();
+        while (left != null && pos < tokens.length) {
+            Token operator = tokens[pos];
+            int power = bindingPower(operator.getKind());
+            if (power < minPower) {
+                break;
+            }
+            pos++;
+            ParseTreeNode right = expression(power + 1);
+            if (right == null) {
+                return null;
+            }
+            left = binary(operator, power, left, right);
+        }
+        return left;
+    }
+
+    private ParseTreeNode primary() {
+        if (pos >= tokens.length) {
+            return fail(pos, "Expected an operand");
+        }
+        Token token = tokens[pos];
+        switch (token.getKind()) {
+            case IDENTIFIER:
+                pos++;
+                return wrap(NonTerminal.IDENTIFIER, token);
+            case COMET_LITERAL:
+                pos++;
+                return wrap(NonTerminal.COMET_LITERAL, token);
+            case OP_PAR:
+                pos++;
+                ParseTreeNode inner = expression(OR);
+                if (inner == null) {
+                    return null;
+                }
+                if (pos >= tokens.length || tokens[pos].getKind() != TokenKind.CL_PAR) {
+                    return fail(pos, "Expected sep_cl_par");
+                }
+                pos++;
+                return inner;
+            default:
+                return fail(pos, "Expected an operand");
+        }
+    }
+
+    private ParseTreeNode binary(Token operator, int power, ParseTreeNode left, ParseTreeNode right) {
+        NonTerminal kind;
+        boolean operandsAreConditions;
+        if (power >= ADDITIVE) {
+            kind = NonTerminal.ARITH_EXP;
+            operandsAreConditions = false;
+        } else if (power == COMPARISON) {
+            kind = NonTerminal.RELATIONAL_EXP;
+            operandsAreConditions = false;
+        } else {
+            kind = NonTerminal.LOGICAL_EXP;
+            operandsAreConditions = true;
+        }
+        if (isCondition(left) != operandsAreConditions || isCondition(right) != operandsAreConditions) {
+            error = "SYNTAX ERROR: Operator " + operator + " at " + operator.getPosition() + " expects "
+                    + (operandsAreConditions ? "comparisons" : "arithmetic operands") + ".";
+            return null;
+        }
+        ParseTreeNode node = new ParseTreeNode(kind);
+        node.addChild(left);
+        node.addChild(new ParseTreeNode(operator));
+        node.addChild(right);
+        return node;
+    }
+
+    private static int bindingPower(TokenKind kind) {
+        switch (kind) {
+            case OR:
+                return OR;
+            case AND:
+                return AND;
+            case EQ:
+            case NOT:
+            case GREAT_EQ:
+            case LESS_EQ:
+            case GREAT:
+            case LESS:
+                return COMPARISON;
+            case PLUS:
+            case MINUS:
+                return ADDITIVE;
+            case MULT:
+            case DIV:
+                return MULTIPLICATIVE;
+            default:
+                return 0;
+        }
+    }
+
+    private static boolean isCondition(ParseTreeNode node) {
+        return node.getKind() == NonTerminal.RELATIONAL_EXP || node.getKind() == NonTerminal.LOGICAL_EXP;
+    }
+
+    private static ParseTreeNode wrap(NonTerminal kind, Token token) {
+        ParseTreeNode node = new ParseTreeNode(kind);
+        node.addChild(new ParseTreeNode(token));
+        return node;
+    }
+
+    private ParseTreeNode fail(int at, String expected) {
+        String found = at < tokens.length
+                ? "Unexpected " + tokens[at] + " at " + tokens[at].getPosition()
+                : "Unexpected end of input";
+        error = "SYNTAX ERROR: " + found + ". " + expected + ".";
+        return null;
+    }
+}
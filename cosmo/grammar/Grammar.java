@@ -0,0 +1,112 @@
+package cosmo.grammar;
+
+import cosmo.lexeme.TokenKind;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static cosmo.grammar.NonTerminal.*;
+
+/**
+ * Declarative description of the CosmoCode grammar. The parse tables are
+ * generated from these rules, so a new statement form only needs new rules
+ * here. External nonterminals (the expressions) have no rules and are
+ * handed to a separate expression parser. Helper nonterminals (see
+ * {@link NonTerminal#isTransparent()}) keep the parse tree in the shape the
+ * Interpreter walks.
+ */
+public final class Grammar {
+    public static final Grammar COSMO = new Grammar(PROGRAM)
+            // Program -> (expr | orbitStmt1 | orbitStmt2 | orbitStmt3 | whirlLoop | launchWhirlLoop)*
+            .rule(PROGRAM, ITEMS)
+            .rule(ITEMS)
+            .rule(ITEMS, ITEMS, ITEM)
+            .rule(ITEM, EXPR)
+            .rule(ITEM, ORBIT_STMT1)
+            .rule(ITEM, ORBIT_STMT2)
+            .rule(ITEM, ORBIT_STMT3)
+            .rule(ITEM, WHIRL_LOOP)
+            .rule(ITEM, LAUNCH_WHIRL_LOOP)
+
+            // expr -> decStmt | assignStmt | transmissionStmt | receptionStmt | arithExp
+            .rule(EXPR, DEC_STMT)
+            .rule(EXPR, ASSIGN_STMT)
+            .rule(EXPR, TRANSMISSION_STMT)
+            .rule(EXPR, RECEPTION_STMT)
+            .rule(EXPR, ARITH_EXP)
+
+            // decStmt -> comet_token identifier arith_assign arithExp sep_semicolon
+            .rule(DEC_STMT, TokenKind.COMET, IDENTIFIER, TokenKind.ASSIGN, ARITH_EXP, TokenKind.SEMICOLON)
+            // assignStmt -> identifier arith_assign arithExp sep_semicolon
+            .rule(ASSIGN_STMT, IDENTIFIER, TokenKind.ASSIGN, ARITH_EXP, TokenKind.SEMICOLON)
+            // transmissionStmt -> transmission_token ( string | identifier ) ;
+            .rule(TRANSMISSION_STMT, TokenKind.TRANSMISSION, TokenKind.OP_PAR, STRING, TokenKind.CL_PAR,
+                    TokenKind.SEMICOLON)
+            .rule(TRANSMISSION_STMT, TokenKind.TRANSMISSION, TokenKind.OP_PAR, IDENTIFIER, TokenKind.CL_PAR,
+                    TokenKind.SEMICOLON)
+            // receptionStmt -> identifier arith_assign reception_token ( string ) ;
+            .rule(RECEPTION_STMT, IDENTIFIER, TokenKind.ASSIGN, TokenKind.RECEPTION, TokenKind.OP_PAR, STRING,
+                    TokenKind.CL_PAR, TokenKind.SEMICOLON)
+
+            .rule(IDENTIFIER, TokenKind.IDENTIFIER)
+            .rule(STRING, TokenKind.STRING)
+
+            // Expressions are parsed by the ExpressionParser; an arithExp may also be a lone operand
+            .external(ARITH_EXP, TokenKind.IDENTIFIER, TokenKind.COMET_LITERAL, TokenKind.OP_PAR)
+            .external(CONDITION, TokenKind.IDENTIFIER, TokenKind.COMET_LITERAL, TokenKind.OP_PAR)
+            // conditionalExp -> ( relationalExp | logicalExp )
+            .rule(CONDITIONAL_EXP, TokenKind.OP_PAR, CONDITION, TokenKind.CL_PAR)
+
+            // stmt -> { expr+ }
+            .rule(STMT, TokenKind.OP_BRAC, EXPR_LIST, TokenKind.CL_BRAC)
+            .rule(EXPR_LIST, EXPR)
+            .rule(EXPR_LIST, EXPR_LIST, EXPR)
+
+            // Orbit ( condition ) { stmt } [Navigate ( condition ) { stmt }] [Propel { stmt }] ;
+            .rule(ORBIT_STMT1, TokenKind.ORBIT, CONDITIONAL_EXP, STMT, TokenKind.SEMICOLON)
+            .rule(ORBIT_STMT2, TokenKind.ORBIT, CONDITIONAL_EXP, STMT, PROPEL_STMT, TokenKind.SEMICOLON)
+            .rule(ORBIT_STMT3, TokenKind.ORBIT, CONDITIONAL_EXP, STMT, NAVIGATE_STMT, PROPEL_STMT,
+                    TokenKind.SEMICOLON)
+            .rule(NAVIGATE_STMT, TokenKind.NAVIGATE, CONDITIONAL_EXP, STMT)
+            .rule(PROPEL_STMT, TokenKind.PROPEL, STMT)
+
+            // Whirl ( condition ) { stmt } ;  and  Launch { stmt } Whirl ( condition ) ;
+            .rule(WHIRL_LOOP, TokenKind.WHIRL, CONDITIONAL_EXP, STMT, TokenKind.SEMICOLON)
+            .rule(LAUNCH_WHIRL_LOOP, TokenKind.LAUNCH_WHIRL, STMT, TokenKind.WHIRL, CONDITIONAL_EXP,
+                    TokenKind.SEMICOLON);
+
+    private final NonTerminal start;
+    private final List<Production> productions = new ArrayList<>();
+    private final Map<NonTerminal, Set<TokenKind>> externals = new EnumMap<>(NonTerminal.class);
+
+    private Grammar(NonTerminal start) {
+        this.start = start;
+    }
+
+    private Grammar rule(NonTerminal lhs, GrammarSymbol... rhs) {
+        productions.add(new Production(productions.size(), lhs, rhs));
+        return this;
+    }
+
+    // A nonterminal without rules, parsed outside the tables; the tokens are those it can start with
+    private Grammar external(NonTerminal symbol, TokenKind... first) {
+        externals.put(symbol, EnumSet.of(first[0], first));
+        return this;
+    }
+
+    public NonTerminal getStart() {
+        return start;
+    }
+
+    public List<Production> getProductions() {
+        return Collections.unmodifiableList(productions);
+    }
+
+    public Map<NonTerminal, Set<TokenKind>> getExternals() {
+        return Collections.unmodifiableMap(externals);
+    }
+}
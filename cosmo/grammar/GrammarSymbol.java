@@ -0,0 +1,8 @@
+package cosmo.grammar;
+
+/**
+ * A terminal or nonterminal that can sit on the parser stack.
+ */
+public interface GrammarSymbol {
+    String label();
+}
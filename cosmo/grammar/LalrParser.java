@@ -0,0 +1,139 @@
+package cosmo.grammar;
+
+import cosmo.ParseTreeNode;
+import cosmo.lexeme.Token;
+import java.util.Arrays;
+
+/**
+ * Table-driven LALR(1) parser for CosmoCode. Every step looks only at the
+ * state on top of the stack and the next token, so parsing is linear in the
+ * number of tokens. Reductions build the parse tree the Interpreter walks.
+ * <p>
+ * Where the grammar expects an expression, the {@link ExpressionParser}
+ * parses it in one step. When a token could both begin an expression and be
+ * shifted (an identifier at the start of a statement), the table path is
+ * taken only if the state after the shift accepts the token that follows.
+ */
+public class LalrParser {
+    private static final LalrTable TABLE = new LalrTable(Grammar.COSMO);
+    private static final int INITIAL_DEPTH = 64;
+
+    private final Token[] tokens;
+    private final ParseListener listener;
+    private final ExpressionParser expressions;
+    private int[] states = new int[INITIAL_DEPTH + 1];
+    private GrammarSymbol[] symbols = new GrammarSymbol[INITIAL_DEPTH];
+    private ParseTreeNode[] nodes = new ParseTreeNode[INITIAL_DEPTH];
+    private String error;
+
+    public LalrParser(Token[] tokens, ParseListener listener) {
+        this.tokens = tokens;
+        this.listener = listener;
+        this.expressions = new ExpressionParser(tokens);
+    }
+
+    /**
+     * Parses the whole token array.
+     *
+     * @return the Program node, or null on a syntax error (see {@link #getError()})
+     */
+    public ParseTreeNode parse() {
+        int depth = 0;
+        int next = 0;
+        states[0] = 0;
+        while (true) {
+            int terminal = next < tokens.length ? tokens[next].getKind().ordinal() : LalrTable.EOF;
+            int action = TABLE.action(states[depth], terminal);
+            NonTerminal external = TABLE.external(states[depth], terminal);
+            if (external != null && !viable(action, next)) { // Expression
+                ParseTreeNode expression = expressions.parse(next, external);
+                if (expression == null) {
+                    error = expressions.getError();
+                    return null;
+                }
+                int from = next;
+                next = expressions.end();
+                push(depth, TABLE.go(states[depth], external), external, expression);
+                depth++;
+                listener.expression(from, next, symbols, depth);
+            } else if (action == LalrTable.ACCEPT) {
+                return nodes[0];
+            } else if (action > 0) { // Shift
+                listener.shift(symbols, depth, next);
+                Token token = tokens[next++];
+                push(depth++, action - 1, token.getKind(), new ParseTreeNode(token));
+            } else if (action < 0) { // Reduce
+                Production production = TABLE.production(-action - 1);
+                depth = reduce(production, depth);
+                listener.reduce(production, symbols, depth);
+            } else {
+                error = describeError(next, states[depth]);
+                return null;
+            }
+        }
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    // Whether the table action can make progress; a shift must be followed by a token the next state accepts
+    private boolean viable(int action, int next) {
+        if (action == LalrTable.ERROR) {
+            return false;
+        }
+        if (action < 0) {
+            return true;
+        }
+        int terminal = next + 1 < tokens.length ? tokens[next + 1].getKind().ordinal() : LalrTable.EOF;
+        return TABLE.action(action - 1, terminal) != LalrTable.ERROR;
+    }
+
+    private int reduce(Production production, int depth) {
+        int first = depth - production.length();
+        NonTerminal lhs = production.getLhs();
+        ParseTreeNode reduced;
+        int from = first;
+        if (lhs.isTransparent() && production.length() > 0 && nodes[first].getKind() == lhs) {
+            // Left-recursive helper list: keep appending to the same node
+            reduced = nodes[first];
+            from++;
+        } else {
+            reduced = new ParseTreeNode(lhs);
+        }
+        for (int k = from; k < depth; k++) {
+            adopt(reduced, nodes[k]);
+        }
+        push(first, TABLE.go(states[first], lhs), lhs, reduced);
+        return first + 1;
+    }
+
+    private static void adopt(ParseTreeNode parent, ParseTreeNode child) {
+        GrammarSymbol kind = child.getKind();
+        if (kind instanceof NonTerminal && ((NonTerminal) kind).isTransparent()) {
+            for (ParseTreeNode grandchild : child.getChildren()) {
+                parent.addChild(grandchild);
+            }
+        } else {
+            parent.addChild(child);
+        }
+    }
+
+    private void push(int depth, int state, GrammarSymbol symbol, ParseTreeNode node) {
+        if (depth == symbols.length) {
+            states = Arrays.copyOf(states, depth * 2 + 1);
+            symbols = Arrays.copyOf(symbols, depth * 2);
+            nodes = Arrays.copyOf(nodes, depth * 2);
+        }
+        states[depth + 1] = state;
+        symbols[depth] = symbol;
+        nodes[depth] = node;
+    }
+
+    private String describeError(int next, int state) {
+        String found = next < tokens.length
+                ? "Unexpected " + tokens[next] + " at " + tokens[next].getPosition()
+                : "Unexpected end of input";
+        return "SYNTAX ERROR: " + found + ". Expected one of: " + String.join(", ", TABLE.expected(state)) + ".";
+    }
+}
@@ -0,0 +1,317 @@
+package cosmo.grammar;
+
+import cosmo.lexeme.TokenKind;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * LALR(1) action and goto tables generated from a {@link Grammar}. The
+ * canonical LR(1) automaton is built first and states with the same core
+ * are then merged. A grammar that is not LALR(1) fails fast with the
+ * conflicting terminal and rules.
+ * <p>
+ * External nonterminals have no rules; the table only records in which
+ * states, and on which terminals, one of them may begin.
+ * <p>
+ * Symbols are numbered with the terminals first (token kind ordinals, then
+ * end of input), followed by the nonterminals.
+ */
+final class LalrTable {
+    static final int ERROR = 0;
+    static final int ACCEPT = Integer.MIN_VALUE;
+    static final int EOF = TokenKind.values().length;
+
+    private static final int TERMINALS = EOF + 1;
+    private static final int NONTERMINALS = NonTerminal.values().length;
+    private static final int SYMBOLS = TERMINALS + NONTERMINALS;
+
+    private final Production[] productions;
+    // Right-hand sides as symbol numbers; the extra last rule is the augmented start rule
+    private final int[][] rhs;
+    private final int[] lhs;
+    private final List<List<Integer>> rulesFor = new ArrayList<>();
+    private final boolean[] nullable = new boolean[NONTERMINALS];
+    private final BitSet[] first = new BitSet[NONTERMINALS];
+    private final int dots;
+
+    // Encoded as shift: target + 1, reduce: -(rule + 1), ACCEPT or ERROR
+    private final int[][] actions;
+    private final int[][] gotos;
+    // External nonterminal that may start in a state on a terminal, or null
+    private final NonTerminal[][] externals;
+
+    LalrTable(Grammar grammar) {
+        productions = grammar.getProductions().toArray(new Production[0]);
+        int start = productions.length;
+        rhs = new int[start + 1][];
+        lhs = new int[start + 1];
+        int longest = 1;
+        for (int i = 0; i < NONTERMINALS; i++) {
+            rulesFor.add(new ArrayList<>());
+            first[i] = new BitSet(TERMINALS);
+        }
+        for (Production production : productions) {
+            int[] symbols = new int[production.length()];
+            for (int k = 0; k < symbols.length; k++) {
+                symbols[k] = symbolOf(production.get(k));
+            }
+            rhs[production.getIndex()] = symbols;
+            lhs[production.getIndex()] = production.getLhs().ordinal();
+            rulesFor.get(production.getLhs().ordinal()).add(production.getIndex());
+            longest = Math.max(longest, symbols.length);
+        }
+        rhs[start] = new int[] { symbolOf(grammar.getStart()) };
+        lhs[start] = -1;
+        dots = longest + 1;
+
+        for (Map.Entry<NonTerminal, Set<TokenKind>> entry : grammar.getExternals().entrySet()) {
+            for (TokenKind kind : entry.getValue()) {
+                first[entry.getKey().ordinal()].set(kind.ordinal());
+            }
+        }
+        computeFirstSets();
+
+        // Canonical LR(1) collection
+        List<BitSet> states = new ArrayList<>();
+        List<int[]> transitions = new ArrayList<>();
+        Map<BitSet, Integer> stateIndex = new HashMap<>();
+        BitSet initial = new BitSet();
+        initial.set(item(start, 0, EOF));
+        initial = closure(initial);
+        states.add(initial);
+        stateIndex.put(initial, 0);
+        for (int s = 0; s < states.size(); s++) {
+            BitSet[] kernels = new BitSet[SYMBOLS];
+            BitSet items = states.get(s);
+            for (int it = items.nextSetBit(0); it >= 0; it = items.nextSetBit(it + 1)) {
+                int rule = ruleOf(it);
+                int dot = dotOf(it);
+                if (dot < rhs[rule].length) {
+                    int symbol = rhs[rule][dot];
+                    if (kernels[symbol] == null) {
+                        kernels[symbol] = new BitSet();
+                    }
+                    kernels[symbol].set(item(rule, dot + 1, lookaheadOf(it)));
+                }
+            }
+            int[] targets = new int[SYMBOLS];
+            Arrays.fill(targets, -1);
+            for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+                if (kernels[symbol] == null) {
+                    continue;
+                }
+                BitSet target = closure(kernels[symbol]);
+                Integer index = stateIndex.get(target);
+                if (index == null) {
+                    index = states.size();
+                    states.add(target);
+                    stateIndex.put(target, index);
+                }
+                targets[symbol] = index;
+            }
+            transitions.add(targets);
+        }
+
+        // Merge states that share a core
+        int[] merged = new int[states.size()];
+        Map<BitSet, Integer> coreIndex = new HashMap<>();
+        for (int s = 0; s < states.size(); s++) {
+            BitSet core = new BitSet();
+            BitSet items = states.get(s);
+            for (int it = items.nextSetBit(0); it >= 0; it = items.nextSetBit(it + 1)) {
+                core.set(it / TERMINALS);
+            }
+            Integer index = coreIndex.get(core);
+            if (index == null) {
+                index = coreIndex.size();
+                coreIndex.put(core, index);
+            }
+            merged[s] = index;
+        }
+
+        actions = new int[coreIndex.size()][TERMINALS];
+        gotos = new int[coreIndex.size()][NONTERMINALS];
+        externals = new NonTerminal[coreIndex.size()][TERMINALS];
+        for (int[] row : gotos) {
+            Arrays.fill(row, -1);
+        }
+        for (int s = 0; s < states.size(); s++) {
+            int state = merged[s];
+            int[] targets = transitions.get(s);
+            for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+                if (targets[symbol] < 0) {
+                    continue;
+                }
+                if (symbol < TERMINALS) {
+                    setAction(state, symbol, merged[targets[symbol]] + 1);
+                } else {
+                    gotos[state][symbol - TERMINALS] = merged[targets[symbol]];
+                    NonTerminal nonTerminal = NonTerminal.values()[symbol - TERMINALS];
+                    for (TokenKind kind : grammar.getExternals().getOrDefault(nonTerminal, Set.of())) {
+                        setExternal(state, kind.ordinal(), nonTerminal);
+                    }
+                }
+            }
+            BitSet items = states.get(s);
+            for (int it = items.nextSetBit(0); it >= 0; it = items.nextSetBit(it + 1)) {
+                int rule = ruleOf(it);
+                if (dotOf(it) == rhs[rule].length) {
+                    setAction(state, lookaheadOf(it), rule == start ? ACCEPT : -(rule + 1));
+                }
+            }
+        }
+    }
+
+    int action(int state, int terminal) {
+        return actions[state][terminal];
+    }
+
+    int go(int state, NonTerminal symbol) {
+        return gotos[state][symbol.ordinal()];
+    }
+
+    NonTerminal external(int state, int terminal) {
+        return externals[state][terminal];
+    }
+
+    Production production(int rule) {
+        return productions[rule];
+    }
+
+    int stateCount() {
+        return actions.length;
+    }
+
+    // Labels of the terminals the given state can act on
+    List<String> expected(int state) {
+        List<String> labels = new ArrayList<>();
+        for (int terminal = 0; terminal < TERMINALS; terminal++) {
+            if (actions[state][terminal] != ERROR || externals[state][terminal] != null) {
+                labels.add(terminalLabel(terminal));
+            }
+        }
+        return labels;
+    }
+
+    static String terminalLabel(int terminal) {
+        return terminal == EOF ? "end of input" : TokenKind.values()[terminal].label();
+    }
+
+    private void setAction(int state, int terminal, int action) {
+        int existing = actions[state][terminal];
+        if (existing != ERROR && existing != action) {
+            throw new IllegalStateException("GRAMMAR ERROR: Conflict on " + terminalLabel(terminal) + " between "
+                    + describe(existing) + " and " + describe(action) + ".");
+        }
+        actions[state][terminal] = action;
+    }
+
+    private void setExternal(int state, int terminal, NonTerminal symbol) {
+        NonTerminal existing = externals[state][terminal];
+        if (existing != null && existing != symbol) {
+            throw new IllegalStateException("GRAMMAR ERROR: Both " + existing.label() + " and " + symbol.label()
+                    + " may start on " + terminalLabel(terminal) + ".");
+        }
+        externals[state][terminal] = symbol;
+    }
+
+    private String describe(int action) {
+        if (action == ACCEPT) {
+            return "accept";
+        }
+        return action > 0 ? "shift" : "reduce " + productions[-action - 1];
+    }
+
+    private void computeFirstSets() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Production production : productions) {
+                int target = production.getLhs().ordinal();
+                int before = first[target].cardinality();
+                boolean derivesEmpty = firstOf(rhs[production.getIndex()], 0, first[target]);
+                changed |= first[target].cardinality() != before;
+                if (derivesEmpty && !nullable[target]) {
+                    nullable[target] = true;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    // Adds FIRST(symbols[from..]) to the set; returns whether that suffix can derive the empty string
+    private boolean firstOf(int[] symbols, int from, BitSet into) {
+        for (int k = from; k < symbols.length; k++) {
+            int symbol = symbols[k];
+            if (symbol < TERMINALS) {
+                into.set(symbol);
+                return false;
+            }
+            into.or(first[symbol - TERMINALS]);
+            if (!nullable[symbol - TERMINALS]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private BitSet closure(BitSet kernel) {
+        BitSet items = (BitSet) kernel.clone();
+        ArrayDeque<Integer> work = new ArrayDeque<>();
+        for (int it = kernel.nextSetBit(0); it >= 0; it = kernel.nextSetBit(it + 1)) {
+            work.push(it);
+        }
+        BitSet lookaheads = new BitSet(TERMINALS);
+        while (!work.isEmpty()) {
+            int it = work.pop();
+            int rule = ruleOf(it);
+            int dot = dotOf(it);
+            if (dot == rhs[rule].length || rhs[rule][dot] < TERMINALS) {
+                continue;
+            }
+            lookaheads.clear();
+            if (firstOf(rhs[rule], dot + 1, lookaheads)) {
+                lookaheads.set(lookaheadOf(it));
+            }
+            for (int next : rulesFor.get(rhs[rule][dot] - TERMINALS)) {
+                for (int la = lookaheads.nextSetBit(0); la >= 0; la = lookaheads.nextSetBit(la + 1)) {
+                    int added = item(next, 0, la);
+                    if (!items.get(added)) {
+                        items.set(added);
+                        work.push(added);
+                    }
+                }
+            }
+        }
+        return items;
+    }
+
+    private int item(int rule, int dot, int lookahead) {
+        return (rule * dots + dot) * TERMINALS + lookahead;
+    }
+
+    private int ruleOf(int item) {
+        return item / TERMINALS / dots;
+    }
+
+    private int dotOf(int item) {
+        return item / TERMINALS % dots;
+    }
+
+    private static int lookaheadOf(int item) {
+        return item % TERMINALS;
+    }
+
+    private static int symbolOf(GrammarSymbol symbol) {
+        if (symbol instanceof TokenKind) {
+            return ((TokenKind) symbol).ordinal();
+        }
+        return TERMINALS + ((NonTerminal) symbol).ordinal();
+    }
+}
@@ -0,0 +1,55 @@
+package cosmo.grammar;
+
+public enum NonTerminal implements GrammarSymbol {
+    PROGRAM("Program"),
+    STRING("string"),
+    IDENTIFIER("identifier"),
+    COMET_LITERAL("comet_literal"),
+    DEC_STMT("decStmt"),
+    ASSIGN_STMT("assignStmt"),
+    TRANSMISSION_STMT("transmissionStmt"),
+    RECEPTION_STMT("receptionStmt"),
+    RELATIONAL_EXP("relationalExp"),
+    LOGICAL_EXP("logicalExp"),
+    CONDITIONAL_EXP("conditionalExp"),
+    CONDITION("condition"),
+    EXPR("expr"),
+    STMT("stmt"),
+    ARITH_EXP("arithExp"),
+    NAVIGATE_STMT("navigateStmt"),
+    PROPEL_STMT("propelStmt"),
+    ORBIT_STMT1("orbitStmt1"),
+    ORBIT_STMT2("orbitStmt2"),
+    ORBIT_STMT3("orbitStmt3"),
+    WHIRL_LOOP("whirlLoop"),
+    LAUNCH_WHIRL_LOOP("launchWhirlLoop"),
+
+    // Helpers that only shape the grammar; their children are spliced into the parent node
+    ITEMS("items", true),
+    ITEM("item", true),
+    EXPR_LIST("exprList", true);
+
+    private final String label;
+    private final boolean transparent;
+
+    NonTerminal(String label) {
+        this(label, false);
+    }
+
+    NonTerminal(String label, boolean transparent) {
+        this.label = label;
+        this.transparent = transparent;
+    }
+
+    @Override
+    public String label() {
+        return label;
+    }
+
+    /**
+     * Whether parse-tree nodes for this symbol are replaced by their children.
+     */
+    public boolean isTransparent() {
+        return transparent;
+    }
+}
@@ -0,0 +1,23 @@
+package cosmo.grammar;
+
+/**
+ * Observes the steps of {@link LalrParser}. The stack holds the grammar
+ * symbols {@code stack[0, depth)} with the top at {@code depth - 1}; it is
+ * only valid for the duration of the call.
+ */
+public interface ParseListener {
+    ParseListener NONE = new ParseListener() {
+    };
+
+    // Called before the token at index next is shifted
+    default void shift(GrammarSymbol[] stack, int depth, int next) {
+    }
+
+    // Called after the production's right-hand side was replaced by its left-hand side
+    default void reduce(Production production, GrammarSymbol[] stack, int depth) {
+    }
+
+    // Called after the expression in tokens [from, to) was parsed and pushed
+    default void expression(int from, int to, GrammarSymbol[] stack, int depth) {
+    }
+}
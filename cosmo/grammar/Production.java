@@ -0,0 +1,50 @@
+package cosmo.grammar;
+
+/**
+ * One grammar rule {@code lhs -> rhs}. An empty right-hand side derives the
+ * empty string.
+ */
+public final class Production {
+    private final int index;
+    private final NonTerminal lhs;
+    private final GrammarSymbol[] rhs;
+
+    Production(int index, NonTerminal lhs, GrammarSymbol[] rhs) {
+        this.index = index;
+        this.lhs = lhs;
+        this.rhs = rhs;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public NonTerminal getLhs() {
+        return lhs;
+    }
+
+    public int length() {
+        return rhs.length;
+    }
+
+    public GrammarSymbol get(int position) {
+        return rhs[position];
+    }
+
+    // Right-hand side labels separated by spaces, as shown in the parser trace
+    public String rhsLabels() {
+        StringBuilder result = new StringBuilder();
+        for (GrammarSymbol symbol : rhs) {
+            if (result.length() > 0) {
+                result.append(' ');
+            }
+            result.append(symbol.label());
+        }
+        return result.toString();
+    }
+
+    @Override
+    public String toString() {
+        return lhs.label() + " -> " + rhsLabels();
+    }
+}
@@ -0,0 +1,283 @@
+package cosmo.interpreter;
+
+import cosmo.ParseTreeNode;
+import cosmo.grammar.NonTerminal;
+import cosmo.interpreter.AstExpressions.And;
+import cosmo.interpreter.AstExpressions.Binary;
+import cosmo.interpreter.AstExpressions.Compare;
+import cosmo.interpreter.AstExpressions.Literal;
+import cosmo.interpreter.AstExpressions.Or;
+import cosmo.interpreter.AstExpressions.Read;
+import cosmo.interpreter.AstExpressions.ReadChain;
+import cosmo.interpreter.AstExpressions.ReadTemp;
+import cosmo.interpreter.AstExpressions.TempHolds;
+import cosmo.interpreter.AstNode.Condition;
+import cosmo.interpreter.AstNode.Expression;
+import cosmo.interpreter.AstNode.Statement;
+import cosmo.interpreter.AstStatements.Advance;
+import cosmo.interpreter.AstStatements.AdvanceByTemp;
+import cosmo.interpreter.AstStatements.Assign;
+import cosmo.interpreter.AstStatements.AssignChain;
+import cosmo.interpreter.AstStatements.Block;
+import cosmo.interpreter.AstStatements.Declare;
+import cosmo.interpreter.AstStatements.Hoist;
+import cosmo.interpreter.AstStatements.HoistCondition;
+import cosmo.interpreter.AstStatements.Launch;
+import cosmo.interpreter.AstStatements.Orbit;
+import cosmo.interpreter.AstStatements.OrbitNavigate;
+import cosmo.interpreter.AstStatements.PrintText;
+import cosmo.interpreter.AstStatements.PrintValue;
+import cosmo.interpreter.AstStatements.Receive;
+import cosmo.interpreter.AstStatements.Sequence;
+import cosmo.interpreter.AstStatements.Whirl;
+import cosmo.lexeme.Token;
+import cosmo.lexeme.TokenKind;
+import java.util.ArrayList;
+import java.util.List;
+
+import static cosmo.interpreter.ParseTrees.child;
+import static cosmo.interpreter.ParseTrees.kindOf;
+import static cosmo.interpreter.ParseTrees.leafToken;
+import static cosmo.interpreter.ParseTrees.literal;
+
+/**
+ * Builds the executable nodes of the AST engine from an accepted parse
+ * tree. Variables are bound to frame slots by the {@link ScopeResolver},
+ * following the same rules as the {@link BytecodeCompiler}, and loops
+ * follow the plan of a {@link LoopOptimizer}. Operators are left generic
+ * until the nodes first run.
+ */
+public final class AstBuilder {
+    private final ScopeResolver scopes = new ScopeResolver();
+    private LoopOptimizer loop; // Plan of the loop body or condition being built, or null
+    private int temps;
+
+    private AstBuilder() {
+    }
+
+    public static AstProgram build(ParseTreeNode program) {
+        AstBuilder builder = new AstBuilder();
+        int scope = builder.scopes.enter(declarations(program), false);
+        List<Statement> items = new ArrayList<>();
+        for (ParseTreeNode item : program.getChildren()) {
+            Statement statement = builder.item(item);
+            if (statement != null) {
+                items.add(statement);
+            }
+        }
+        Block root = new Block(builder.scopes.base(scope), builder.scopes.ids(scope),
+                new Sequence(items.toArray(new Statement[0])));
+        builder.scopes.exit();
+        return new AstProgram(root, builder.scopes.slotCount(), builder.temps);
+    }
+
+    private Statement item(ParseTreeNode node) {
+        switch (kindOf(node)) {
+            case EXPR:
+                return statement(node.getChildren().get(0));
+            case ORBIT_STMT1:
+                return new Orbit(condition(child(node, NonTerminal.CONDITIONAL_EXP, "AST")),
+                        block(child(node, NonTerminal.STMT, "AST")), null);
+            case ORBIT_STMT2: {
+                Condition condition = condition(child(node, NonTerminal.CONDITIONAL_EXP, "AST"));
+                Block then = block(child(node, NonTerminal.STMT, "AST"));
+                return new Orbit(condition, then, block(child(child(node, NonTerminal.PROPEL_STMT, "AST"), NonTerminal.STMT, "AST")));
+            }
+            case ORBIT_STMT3: {
+                ParseTreeNode navigate = child(node, NonTerminal.NAVIGATE_STMT, "AST");
+                Condition first = condition(child(node, NonTerminal.CONDITIONAL_EXP, "AST"));
+                Condition second = condition(child(navigate, NonTerminal.CONDITIONAL_EXP, "AST"));
+                return new OrbitNavigate(first, block(child(node, NonTerminal.STMT, "AST")), second,
+                        block(child(navigate, NonTerminal.STMT, "AST")),
+                        block(child(child(node, NonTerminal.PROPEL_STMT, "AST"), NonTerminal.STMT, "AST")));
+            }
+            case WHIRL_LOOP: {
+                ParseTreeNode body = child(node, NonTerminal.STMT, "AST");
+                ParseTreeNode conditionalExp = child(node, NonTerminal.CONDITIONAL_EXP, "AST");
+                // Resolved once where it is first evaluated, before the loop's scope opens, and once inside it
+                Condition condition = condition(conditionalExp);
+                int scope = scopes.enter(declarations(body), true);
+                LoopOptimizer plan = LoopOptimizer.plan(body, conditionalExp, scopes);
+                Sequence prepare = prepare(plan);
+                loop = plan;
+                Sequence statements = statements(body);
+                Condition repeat = condition(conditionalExp);
+                loop = null;
+                scopes.exit();
+                return new Whirl(condition, scopes.base(scope), scopes.ids(scope), prepare, statements, repeat);
+            }
+            case LAUNCH_WHIRL_LOOP: {
+                ParseTreeNode body = child(node, NonTerminal.STMT, "AST");
+                ParseTreeNode conditionalExp = child(node, NonTerminal.CONDITIONAL_EXP, "AST");
+                int scope = scopes.enter(declarations(body), true);
+                LoopOptimizer plan = LoopOptimizer.plan(body, conditionalExp, scopes);
+                Sequence prepare = prepare(plan);
+                loop = plan;
+                Sequence statements = statements(body);
+                Condition condition = condition(conditionalExp);
+                loop = null;
+                scopes.exit();
+                return new Launch(scopes.base(scope), scopes.ids(scope), prepare, statements, condition);
+            }
+            default:
+                throw new IllegalStateException("AST ERROR: Unexpected " + node.getSymbol() + " in program.");
+        }
+    }
+
+    // Statements that set the plan's hidden slots before the first iteration
+    private Sequence prepare(LoopOptimizer plan) {
+        List<Statement> statements = new ArrayList<>();
+        for (LoopOptimizer.Hoisted hoisted : plan.hoisted()) {
+            statements.add(kindOf(hoisted.node) == NonTerminal.ARITH_EXP
+                    ? new Hoist(hoisted.temp, arithmetic(hoisted.node))
+                    : new HoistCondition(hoisted.temp, predicate(hoisted.node)));
+        }
+        for (LoopOptimizer.Reduction reduction : plan.reductions()) {
+            statements.add(new Hoist(reduction.temp, arithmetic(reduction.product)));
+            if (reduction.stepTemp != LoopOptimizer.NONE) {
+                statements.add(new Hoist(reduction.stepTemp,
+                        new Binary(TokenKind.MULT, new Literal(reduction.step), arithmetic(reduction.factor))));
+            }
+        }
+        temps = Math.max(temps, plan.temps());
+        return new Sequence(statements.toArray(new Statement[0]));
+    }
+
+    // A branch body runs in a scope of its own
+    private Block block(ParseTreeNode stmt) {
+        int scope = scopes.enter(declarations(stmt), false);
+        Sequence statements = statements(stmt);
+        scopes.exit();
+        return new Block(scopes.base(scope), scopes.ids(scope), statements);
+    }
+
+    // Identifier IDs declared directly in a Program or stmt, in order
+    private static List<Integer> declarations(ParseTreeNode node) {
+        List<Integer> ids = new ArrayList<>();
+        for (ParseTreeNode child : node.getChildren()) {
+            if (kindOf(child) == NonTerminal.EXPR && kindOf(child.getChildren().get(0)) == NonTerminal.DEC_STMT) {
+                ids.add(leafToken(child(child.getChildren().get(0), NonTerminal.IDENTIFIER, "AST")).getId());
+            }
+        }
+        return ids;
+    }
+
+    private Sequence statements(ParseTreeNode stmt) {
+        List<Statement> statements = new ArrayList<>();
+        for (ParseTreeNode child : stmt.getChildren()) {
+            if (kindOf(child) == NonTerminal.EXPR) {
+                Statement statement = statement(child.getChildren().get(0));
+                if (statement != null) {
+                    statements.add(statement);
+                }
+            }
+        }
+        return new Sequence(statements.toArray(new Statement[0]));
+    }
+
+    // A statement node, or null for a bare arithmetic expression, which has no effect
+    private Statement statement(ParseTreeNode node) {
+        switch (kindOf(node)) {
+            case DEC_STMT: {
+                Token target = leafToken(child(node, NonTerminal.IDENTIFIER, "AST"));
+                Expression value = arithmetic(node.getChildren().get(3));
+                return new Declare(scopes.declare(target.getId()), value, "DECLARATION ERROR: "
+                        + target.getLexeme() + " has already been declared in the current scope.");
+            }
+            case ASSIGN_STMT: {
+                Token target = leafToken(child(node, NonTerminal.IDENTIFIER, "AST"));
+                Expression value = arithmetic(node.getChildren().get(2));
+                ScopeResolver.Binding binding = scopes.resolve(target.getId());
+                Statement assign = binding.definite ? new Assign(binding.slots[0], value)
+                        : new AssignChain(binding.slots, value,
+                                "ASSIGNMENT ERROR: " + target.getLexeme() + " has not been declared.");
+                if (loop == null || loop.updates(target.getId()).isEmpty()) {
+                    return assign;
+                }
+                // The step of an induction variable, then the products that follow it
+                List<Statement> statements = new ArrayList<>();
+                statements.add(assign);
+                for (LoopOptimizer.Reduction reduction : loop.updates(target.getId())) {
+                    statements.add(reduction.stepTemp == LoopOptimizer.NONE
+                            ? new Advance(reduction.temp, reduction.amount())
+                            : new AdvanceByTemp(reduction.temp, reduction.stepTemp));
+                }
+                return new Sequence(statements.toArray(new Statement[0]));
+            }
+            case TRANSMISSION_STMT: {
+                ParseTreeNode operand = node.getChildren().get(2);
+                Token token = leafToken(operand);
+                if (kindOf(operand) == NonTerminal.STRING) {
+                    return new PrintText(token.getLexeme().replace("\"", ""));
+                }
+                return new PrintValue(variable(token, "TRANSMISSION ERROR: " + token.getLexeme()
+                        + " has not yet been declared or is out of scope."));
+            }
+            case RECEPTION_STMT: {
+                Token target = leafToken(child(node, NonTerminal.IDENTIFIER, "AST"));
+                Token prompt = leafToken(child(node, NonTerminal.STRING, "AST"));
+                return new Receive(scopes.resolve(target.getId()).slots, prompt.getLexeme().replace("\"", ""),
+                        "RECEPTION ERROR: " + target.getLexeme() + " has not yet been declared.");
+            }
+            default:
+                return null;
+        }
+    }
+
+    // An identifier, comet_literal or arithExp
+    private Expression arithmetic(ParseTreeNode node) {
+        int temp = loop != null ? loop.temp(node) : LoopOptimizer.NONE;
+        if (temp != LoopOptimizer.NONE) {
+            return new ReadTemp(temp);
+        }
+        switch (kindOf(node)) {
+            case IDENTIFIER: {
+                Token token = leafToken(node);
+                return variable(token, "ARITHMETIC ERROR: " + token.getLexeme() + " is not defined.");
+            }
+            case COMET_LITERAL:
+                return new Literal(literal(node));
+            default: {
+                List<ParseTreeNode> children = node.getChildren();
+                Expression left = arithmetic(children.get(0));
+                Expression right = arithmetic(children.get(2));
+                return new Binary(children.get(1).getToken().getKind(), left, right);
+            }
+        }
+    }
+
+    // conditionalExp -> ( relationalExp | logicalExp )
+    private Condition condition(ParseTreeNode conditionalExp) {
+        return predicate(conditionalExp.getChildren().get(1));
+    }
+
+    private Condition predicate(ParseTreeNode node) {
+        int temp = loop != null ? loop.temp(node) : LoopOptimizer.NONE;
+        if (temp != LoopOptimizer.NONE) {
+            return new TempHolds(temp);
+        }
+        List<ParseTreeNode> children = node.getChildren();
+        TokenKind operator = children.get(1).getToken().getKind();
+        if (kindOf(node) == NonTerminal.LOGICAL_EXP) {
+            Condition left = predicate(children.get(0));
+            Condition right = predicate(children.get(2));
+            return operator == TokenKind.AND ? new And(left, right) : new Or(left, right);
+        }
+        return new Compare(operator, comparisonOperand(children.get(0)), comparisonOperand(children.get(2)));
+    }
+
+    private Expression comparisonOperand(ParseTreeNode node) {
+        if (kindOf(node) == NonTerminal.IDENTIFIER) {
+            Token token = leafToken(node);
+            return variable(token, "RELATIONAL ERROR: " + token.getLexeme() + " is not defined.");
+        }
+        return arithmetic(node);
+    }
+
+    // Reads the variable the identifier refers to here; the message is used if there is none
+    private Expression variable(Token token, String message) {
+        ScopeResolver.Binding binding = scopes.resolve(token.getId());
+        return binding.definite ? new Read(binding.slots[0]) : new ReadChain(binding.slots, message);
+    }
+
+}
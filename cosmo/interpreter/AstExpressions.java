@@ -0,0 +1,459 @@
+package cosmo.interpreter;
+
+import cosmo.interpreter.AstNode.Condition;
+import cosmo.interpreter.AstNode.Expression;
+import cosmo.interpreter.AstNode.Frame;
+import cosmo.lexeme.TokenKind;
+
+/**
+ * Arithmetic and condition nodes of the AST engine. {@link Binary} and
+ * {@link Compare} are the generic forms the builder creates. On first
+ * execution each one picks a node for its operator, or a fused node when
+ * one operand is a variable and the other a literal.
+ */
+final class AstExpressions {
+    private AstExpressions() {
+    }
+
+    // An operator function for comparisons, chosen once per node
+    interface Comparison {
+        boolean test(int left, int right);
+    }
+
+    static final class Literal extends Expression {
+        final int value;
+
+        Literal(int value) {
+            this.value = value;
+        }
+
+        @Override
+        int execute(Frame frame) {
+            return value;
+        }
+    }
+
+    // A variable known to exist wherever this node runs
+    static final class Read extends Expression {
+        final int slot;
+
+        Read(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        int execute(Frame frame) {
+            return frame.values[slot];
+        }
+    }
+
+    // A variable that is only found at run time, see ScopeResolver
+    static final class ReadChain extends Expression {
+        private final int[] chain;
+        private final String message;
+
+        ReadChain(int[] chain, String message) {
+            this.chain = chain;
+            this.message = message;
+        }
+
+        @Override
+        int execute(Frame frame) {
+            return frame.values[frame.slot(chain, message)];
+        }
+    }
+
+    // A hidden slot of the LoopOptimizer
+    static final class ReadTemp extends Expression {
+        private final int temp;
+
+        ReadTemp(int temp) {
+            this.temp = temp;
+        }
+
+        @Override
+        int execute(Frame frame) {
+            return frame.temps[temp];
+        }
+    }
+
+    static final class Binary extends Expression {
+        private final TokenKind operator;
+        private Expression left;
+        private Expression right;
+
+        Binary(TokenKind operator, Expression left, Expression right) {
+            this.operator = operator;
+            this.left = adopt(left);
+            this.right = adopt(right);
+        }
+
+        @Override
+        int execute(Frame frame) {
+            return replace(specialize()).execute(frame);
+        }
+
+        private Expression specialize() {
+            if (left instanceof Read && right instanceof Literal) {
+                Expression fused = fuse(((Read) left).slot, ((Literal) right).value, false);
+                if (fused != null) {
+                    return fused;
+                }
+            } else if (left instanceof Literal && right instanceof Read) {
+                Expression fused = fuse(((Read) right).slot, ((Literal) left).value, true);
+                if (fused != null) {
+                    return fused;
+                }
+            }
+            switch (operator) {
+                case PLUS:
+                    return new Add(left, right);
+                case MINUS:
+                    return new Subtract(left, right);
+                case MULT:
+                    return new Multiply(left, right);
+                case DIV:
+                    return new Divide(left, right);
+                default:
+                    throw new IllegalStateException("ARITHMETIC ERROR: Unknown arithmetic operator: " + operator + ".");
+            }
+        }
+
+        // A variable combined with a literal, or null if there is no fused form
+        private Expression fuse(int slot, int literal, boolean literalFirst) {
+            switch (operator) {
+                case PLUS:
+                    return new ReadPlusLiteral(slot, literal);
+                case MINUS:
+                    // x - c wraps exactly like x + -c
+                    return literalFirst ? null : new ReadPlusLiteral(slot, -literal);
+                case MULT:
+                    return new ReadTimesLiteral(slot, literal);
+                case DIV:
+                    return literalFirst || literal == 0 ? null : new ReadDivideLiteral(slot, literal);
+                default:
+                    return null;
+            }
+        }
+
+        @Override
+        void replaceChild(AstNode child, AstNode replacement) {
+            if (child == left) {
+                left = (Expression) replacement;
+            } else {
+                right = (Expression) replacement;
+            }
+        }
+    }
+
+    // Base of the specialized two-operand forms
+    abstract static class BinaryOperation extends Expression {
+        Expression left;
+        Expression right;
+
+        BinaryOperation(Expression left, Expression right) {
+            this.left = adopt(left);
+            this.right = adopt(right);
+        }
+
+        @Override
+        void replaceChild(AstNode child, AstNode replacement) {
+            if (child == left) {
+                left = (Expression) replacement;
+            } else {
+                right = (Expression) replacement;
+            }
+        }
+    }
+
+    static final class Add extends BinaryOperation {
+        Add(Expression left, Expression right) {
+            super(left, right);
+        }
+
+        @Override
+        int execute(Frame frame) {
+            return left.execute(frame) + right.execute(frame);
+        }
+    }
+
+    static final class Subtract extends BinaryOperation {
+        Subtract(Expression left, Expression right) {
+            super(left, right);
+        }
+
+        @Override
+        int execute(Frame frame) {
+            return left.execute(frame) - right.execute(frame);
+        }
+    }
+
+    static final class Multiply extends BinaryOperation {
+        Multiply(Expression left, Expression right) {
+            super(left, right);
+        }
+
+        @Override
+        int execute(Frame frame) {
+            return left.execute(frame) * right.execute(frame);
+        }
+    }
+
+    static final class Divide extends BinaryOperation {
+        Divide(Expression left, Expression right) {
+            super(left, right);
+        }
+
+        @Override
+        int execute(Frame frame) {
+            int dividend = left.execute(frame);
+            int divisor = right.execute(frame);
+            if (divisor == 0) {
+                throw new IllegalStateException("ARITHMETIC ERROR: Division by zero.");
+            }
+            return dividend / divisor;
+        }
+    }
+
+    static final class ReadPlusLiteral extends Expression {
+        final int slot;
+        final int literal;
+
+        ReadPlusLiteral(int slot, int literal) {
+            this.slot = slot;
+            this.literal = literal;
+        }
+
+        @Override
+        int execute(Frame frame) {
+            return frame.values[slot] + literal;
+        }
+    }
+
+    static final class ReadTimesLiteral extends Expression {
+        private final int slot;
+        private final int literal;
+
+        ReadTimesLiteral(int slot, int literal) {
+            this.slot = slot;
+            this.literal = literal;
+        }
+
+        @Override
+        int execute(Frame frame) {
+            return frame.values[slot] * literal;
+        }
+    }
+
+    // The divisor is a non-zero literal, so there is nothing to check
+    static final class ReadDivideLiteral extends Expression {
+        private final int slot;
+        private final int literal;
+
+        ReadDivideLiteral(int slot, int literal) {
+            this.slot = slot;
+            this.literal = literal;
+        }
+
+        @Override
+        int execute(Frame frame) {
+            return frame.values[slot] / literal;
+        }
+    }
+
+    static final class Compare extends Condition {
+        private final TokenKind operator;
+        private Expression left;
+        private Expression right;
+
+        Compare(TokenKind operator, Expression left, Expression right) {
+            this.operator = operator;
+            this.left = adopt(left);
+            this.right = adopt(right);
+        }
+
+        @Override
+        boolean execute(Frame frame) {
+            return replace(specialize()).execute(frame);
+        }
+
+        private Condition specialize() {
+            if (left instanceof Read && right instanceof Literal) {
+                return readAgainstLiteral(((Read) left).slot, operator, ((Literal) right).value);
+            } else if (left instanceof Literal && right instanceof Read) {
+                return readAgainstLiteral(((Read) right).slot, mirror(operator), ((Literal) left).value);
+            }
+            return new CompareOperands(comparison(operator), left, right);
+        }
+
+        @Override
+        void replaceChild(AstNode child, AstNode replacement) {
+            if (child == left) {
+                left = (Expression) replacement;
+            } else {
+                right = (Expression) replacement;
+            }
+        }
+
+        private static Condition readAgainstLiteral(int slot, TokenKind operator, int literal) {
+            return operator == TokenKind.LESS ? new ReadLessThanLiteral(slot, literal)
+                    : new CompareReadLiteral(comparison(operator), slot, literal);
+        }
+
+        // The operator with its operands swapped: c < x is x > c
+        private static TokenKind mirror(TokenKind operator) {
+            switch (operator) {
+                case LESS:
+                    return TokenKind.GREAT;
+                case LESS_EQ:
+                    return TokenKind.GREAT_EQ;
+                case GREAT:
+                    return TokenKind.LESS;
+                case GREAT_EQ:
+                    return TokenKind.LESS_EQ;
+                default:
+                    return operator;
+            }
+        }
+
+        private static Comparison comparison(TokenKind operator) {
+            switch (operator) {
+                case EQ:
+                    return (a, b) -> a == b;
+                case NOT:
+                    return (a, b) -> a != b;
+                case LESS:
+                    return (a, b) -> a < b;
+                case LESS_EQ:
+                    return (a, b) -> a <= b;
+                case GREAT:
+                    return (a, b) -> a > b;
+                case GREAT_EQ:
+                    return (a, b) -> a >= b;
+                default:
+                    throw new IllegalStateException("RELATIONAL ERROR: Unknown relational operator: " + operator + ".");
+            }
+        }
+    }
+
+    static final class CompareOperands extends Condition {
+        private final Comparison comparison;
+        private Expression left;
+        private Expression right;
+
+        CompareOperands(Comparison comparison, Expression left, Expression right) {
+            this.comparison = comparison;
+            this.left = adopt(left);
+            this.right = adopt(right);
+        }
+
+        @Override
+        boolean execute(Frame frame) {
+            return comparison.test(left.execute(frame), right.execute(frame));
+        }
+
+        @Override
+        void replaceChild(AstNode child, AstNode replacement) {
+            if (child == left) {
+                left = (Expression) replacement;
+            } else {
+                right = (Expression) replacement;
+            }
+        }
+    }
+
+    static final class CompareReadLiteral extends Condition {
+        private final Comparison comparison;
+        private final int slot;
+        private final int literal;
+
+        CompareReadLiteral(Comparison comparison, int slot, int literal) {
+            this.comparison = comparison;
+            this.slot = slot;
+            this.literal = literal;
+        }
+
+        @Override
+        boolean execute(Frame frame) {
+            return comparison.test(frame.values[slot], literal);
+        }
+    }
+
+    // The usual Whirl condition
+    static final class ReadLessThanLiteral extends Condition {
+        private final int slot;
+        private final int literal;
+
+        ReadLessThanLiteral(int slot, int literal) {
+            this.slot = slot;
+            this.literal = literal;
+        }
+
+        @Override
+        boolean execute(Frame frame) {
+            return frame.values[slot] < literal;
+        }
+    }
+
+    // A condition the LoopOptimizer evaluated before the loop, as 1 or 0
+    static final class TempHolds extends Condition {
+        private final int temp;
+
+        TempHolds(int temp) {
+            this.temp = temp;
+        }
+
+        @Override
+        boolean execute(Frame frame) {
+            return frame.temps[temp] != 0;
+        }
+    }
+
+    static final class And extends Condition {
+        private Condition left;
+        private Condition right;
+
+        And(Condition left, Condition right) {
+            this.left = adopt(left);
+            this.right = adopt(right);
+        }
+
+        @Override
+        boolean execute(Frame frame) {
+            return left.execute(frame) && right.execute(frame);
+        }
+
+        @Override
+        void replaceChild(AstNode child, AstNode replacement) {
+            if (child == left) {
+                left = (Condition) replacement;
+            } else {
+                right = (Condition) replacement;
+            }
+        }
+    }
+
+    static final class Or extends Condition {
+        private Condition left;
+        private Condition right;
+
+        Or(Condition left, Condition right) {
+            this.left = adopt(left);
+            this.right = adopt(right);
+        }
+
+        @Override
+        boolean execute(Frame frame) {
+            return left.execute(frame) || right.execute(frame);
+        }
+
+        @Override
+        void replaceChild(AstNode child, AstNode replacement) {
+            if (child == left) {
+                left = (Condition) replacement;
+            } else {
+                right = (Condition) replacement;
+            }
+        }
+    }
+}
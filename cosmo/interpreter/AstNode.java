@@ -0,0 +1,101 @@
+package cosmo.interpreter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * An executable node of the self-specializing AST engine. A node starts out
+ * generic. The first time it runs, it may replace itself in its parent with
+ * a form specialized to what it found, for example a variable plus a
+ * literal. Later runs go straight to the specialized node.
+ * <p>
+ * {@link #replace} is the only way a node changes the tree, so caches that
+ * must be invalidated later, such as inline caches, can hook in there.
+ */
+abstract class AstNode {
+    private AstNode parent;
+
+    final <T extends AstNode> T adopt(T child) {
+        ((AstNode) child).parent = this;
+        return child;
+    }
+
+    // Swaps this node for replacement in its parent and returns replacement
+    final <T extends AstNode> T replace(T replacement) {
+        parent.replaceChild(this, replacement);
+        ((AstNode) replacement).parent = parent;
+        return replacement;
+    }
+
+    void replaceChild(AstNode child, AstNode replacement) {
+        throw new IllegalStateException("AST ERROR: " + getClass().getSimpleName() + " has no replaceable child.");
+    }
+
+    abstract static class Expression extends AstNode {
+        abstract int execute(Frame frame);
+    }
+
+    abstract static class Condition extends AstNode {
+        abstract boolean execute(Frame frame);
+    }
+
+    abstract static class Statement extends AstNode {
+        abstract void execute(Frame frame);
+    }
+
+    /**
+     * The variables of one run: a value and a declared flag per frame slot,
+     * as laid out by the {@link ScopeResolver}, the hidden slots of the
+     * {@link LoopOptimizer}, and the run's IO and {@link Governor}.
+     */
+    static final class Frame {
+        final int[] values;
+        final boolean[] declared;
+        final int[] temps;
+        final ProgramIO io;
+        final Governor governor;
+        private final ScopeRecorder recorder;
+
+        Frame(int slots, int temps, RunContext context) {
+            this.values = new int[slots];
+            this.declared = new boolean[slots];
+            this.temps = new int[temps];
+            this.io = context.getIO();
+            this.recorder = context.getRecorder();
+            this.governor = context.getGovernor();
+        }
+
+        void enterScope(int base, int[] ids) {
+            governor.enterScope();
+            Arrays.fill(declared, base, base + ids.length, false);
+        }
+
+        void exitScope(int base, int[] ids) {
+            // The variables are only boxed for a scope the recorder keeps
+            HashMap<Integer, Integer> scope = recorder.wants(governor.getDepth()) ? new HashMap<>() : null;
+            int count = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (declared[base + i]) {
+                    count++;
+                    if (scope != null) {
+                        scope.put(ids[i], values[base + i]);
+                    }
+                }
+            }
+            if (scope != null) {
+                recorder.record(scope);
+            }
+            governor.exitScope(count);
+        }
+
+        // First slot of the chain whose variable exists in the current run of its scope
+        int slot(int[] chain, String message) {
+            for (int slot : chain) {
+                if (declared[slot]) {
+                    return slot;
+                }
+            }
+            throw new IllegalStateException(message);
+        }
+    }
+}
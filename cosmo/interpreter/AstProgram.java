@@ -0,0 +1,24 @@
+package cosmo.interpreter;
+
+
+/**
+ * A CosmoCode program as executable nodes, built by the {@link AstBuilder}.
+ * Nodes specialize themselves during the first run and stay specialized, so
+ * later runs of the same program start fast; each run has its own frame.
+ * Because of that rewriting, runs of one AstProgram must not overlap.
+ */
+public final class AstProgram {
+    private final AstNode.Statement root;
+    private final int slots;
+    private final int temps;
+
+    AstProgram(AstNode.Statement root, int slots, int temps) {
+        this.root = root;
+        this.slots = slots;
+        this.temps = temps;
+    }
+
+    public void run(RunContext context) {
+        root.execute(new AstNode.Frame(slots, temps, context));
+    }
+}
@@ -0,0 +1,426 @@
+package cosmo.interpreter;
+
+import cosmo.interpreter.AstExpressions.ReadPlusLiteral;
+import cosmo.interpreter.AstNode.Condition;
+import cosmo.interpreter.AstNode.Expression;
+import cosmo.interpreter.AstNode.Frame;
+import cosmo.interpreter.AstNode.Statement;
+
+/**
+ * Statement and control-flow nodes of the AST engine. They keep the order
+ * of evaluation, scoping and error messages of the tree-walking Interpreter.
+ * An assignment that adds a literal to its own target rewrites itself into
+ * an {@link Increment} on first execution.
+ */
+final class AstStatements {
+    private AstStatements() {
+    }
+
+    static final class Declare extends Statement {
+        private final int slot;
+        private final String message;
+        private Expression value;
+
+        Declare(int slot, Expression value, String message) {
+            this.slot = slot;
+            this.value = adopt(value);
+            this.message = message;
+        }
+
+        @Override
+        void execute(Frame frame) {
+            int result = value.execute(frame);
+            if (frame.declared[slot]) {
+                throw new IllegalStateException(message);
+            }
+            frame.governor.declare();
+            frame.declared[slot] = true;
+            frame.values[slot] = result;
+        }
+
+        @Override
+        void replaceChild(AstNode child, AstNode replacement) {
+            value = (Expression) replacement;
+        }
+    }
+
+    // An assignment to a variable known to exist wherever this node runs
+    static final class Assign extends Statement {
+        private final int slot;
+        private Expression value;
+
+        Assign(int slot, Expression value) {
+            this.slot = slot;
+            this.value = adopt(value);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            frame.values[slot] = value.execute(frame);
+            // The value has specialized itself by now
+            if (value instanceof ReadPlusLiteral && ((ReadPlusLiteral) value).slot == slot) {
+                replace(new Increment(slot, ((ReadPlusLiteral) value).literal));
+            }
+        }
+
+        @Override
+        void replaceChild(AstNode child, AstNode replacement) {
+            value = (Expression) replacement;
+        }
+    }
+
+    // x = x + c and x = x - c
+    static final class Increment extends Statement {
+        private final int slot;
+        private final int amount;
+
+        Increment(int slot, int amount) {
+            this.slot = slot;
+            this.amount = amount;
+        }
+
+        @Override
+        void execute(Frame frame) {
+            frame.values[slot] += amount;
+        }
+    }
+
+    // An assignment to a variable that is only found at run time, after its value is computed
+    static final class AssignChain extends Statement {
+        private final int[] chain;
+        private final String message;
+        private Expression value;
+
+        AssignChain(int[] chain, Expression value, String message) {
+            this.chain = chain;
+            this.value = adopt(value);
+            this.message = message;
+        }
+
+        @Override
+        void execute(Frame frame) {
+            int result = value.execute(frame);
+            frame.values[frame.slot(chain, message)] = result;
+        }
+
+        @Override
+        void replaceChild(AstNode child, AstNode replacement) {
+            value = (Expression) replacement;
+        }
+    }
+
+    // Sets a hidden slot of the LoopOptimizer before a loop's first iteration
+    static final class Hoist extends Statement {
+        private final int temp;
+        private Expression value;
+
+        Hoist(int temp, Expression value) {
+            this.temp = temp;
+            this.value = adopt(value);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            frame.temps[temp] = value.execute(frame);
+        }
+
+        @Override
+        void replaceChild(AstNode child, AstNode replacement) {
+            value = (Expression) replacement;
+        }
+    }
+
+    static final class HoistCondition extends Statement {
+        private final int temp;
+        private Condition condition;
+
+        HoistCondition(int temp, Condition condition) {
+            this.temp = temp;
+            this.condition = adopt(condition);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            frame.temps[temp] = condition.execute(frame) ? 1 : 0;
+        }
+
+        @Override
+        void replaceChild(AstNode child, AstNode replacement) {
+            condition = (Condition) replacement;
+        }
+    }
+
+    // Keeps a product of an induction variable up to date after the variable's step
+    static final class Advance extends Statement {
+        private final int temp;
+        private final int amount;
+
+        Advance(int temp, int amount) {
+            this.temp = temp;
+            this.amount = amount;
+        }
+
+        @Override
+        void execute(Frame frame) {
+            frame.temps[temp] += amount;
+        }
+    }
+
+    // As Advance, for a factor that is only known once the loop starts
+    static final class AdvanceByTemp extends Statement {
+        private final int temp;
+        private final int stepTemp;
+
+        AdvanceByTemp(int temp, int stepTemp) {
+            this.temp = temp;
+            this.stepTemp = stepTemp;
+        }
+
+        @Override
+        void execute(Frame frame) {
+            frame.temps[temp] += frame.temps[stepTemp];
+        }
+    }
+
+    static final class PrintText extends Statement {
+        private final String text;
+
+        PrintText(String text) {
+            this.text = text;
+        }
+
+        @Override
+        void execute(Frame frame) {
+            frame.io.transmit(text);
+        }
+    }
+
+    static final class PrintValue extends Statement {
+        private Expression value;
+
+        PrintValue(Expression value) {
+            this.value = adopt(value);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            frame.io.transmit(value.execute(frame));
+        }
+
+        @Override
+        void replaceChild(AstNode child, AstNode replacement) {
+            value = (Expression) replacement;
+        }
+    }
+
+    static final class Receive extends Statement {
+        private final int[] chain;
+        private final String prompt;
+        private final String message;
+
+        Receive(int[] chain, String prompt, String message) {
+            this.chain = chain;
+            this.prompt = prompt;
+            this.message = message;
+        }
+
+        @Override
+        void execute(Frame frame) {
+            int slot = frame.slot(chain, message);
+            frame.values[slot] = frame.io.receive(prompt);
+        }
+    }
+
+    // Statements run one after another, in no scope of their own
+    static final class Sequence extends Statement {
+        private final Statement[] statements;
+
+        Sequence(Statement[] statements) {
+            this.statements = statements;
+            for (Statement statement : statements) {
+                adopt(statement);
+            }
+        }
+
+        @Override
+        void execute(Frame frame) {
+            for (Statement statement : statements) {
+                statement.execute(frame);
+            }
+        }
+
+        @Override
+        void replaceChild(AstNode child, AstNode replacement) {
+            for (int i = 0; i < statements.length; i++) {
+                if (statements[i] == child) {
+                    statements[i] = (Statement) replacement;
+                }
+            }
+        }
+    }
+
+    // A Program or branch body in its own scope
+    static final class Block extends Statement {
+        private final int base;
+        private final int[] ids;
+        private final Sequence body;
+
+        Block(int base, int[] ids, Sequence body) {
+            this.base = base;
+            this.ids = ids;
+            this.body = adopt(body);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            frame.enterScope(base, ids);
+            body.execute(frame);
+            frame.exitScope(base, ids);
+        }
+    }
+
+    static final class Orbit extends Statement {
+        private Condition condition;
+        private final Block then;
+        private final Block otherwise;
+
+        // otherwise is null for an Orbit without Propel
+        Orbit(Condition condition, Block then, Block otherwise) {
+            this.condition = adopt(condition);
+            this.then = adopt(then);
+            this.otherwise = otherwise != null ? adopt(otherwise) : null;
+        }
+
+        @Override
+        void execute(Frame frame) {
+            if (condition.execute(frame)) {
+                then.execute(frame);
+            } else if (otherwise != null) {
+                otherwise.execute(frame);
+            }
+        }
+
+        @Override
+        void replaceChild(AstNode child, AstNode replacement) {
+            condition = (Condition) replacement;
+        }
+    }
+
+    // Orbit, Navigate and Propel; both conditions are evaluated before a branch is chosen
+    static final class OrbitNavigate extends Statement {
+        private Condition first;
+        private Condition second;
+        private final Block orbit;
+        private final Block navigate;
+        private final Block propel;
+
+        OrbitNavigate(Condition first, Block orbit, Condition second, Block navigate, Block propel) {
+            this.first = adopt(first);
+            this.orbit = adopt(orbit);
+            this.second = adopt(second);
+            this.navigate = adopt(navigate);
+            this.propel = adopt(propel);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            boolean firstHolds = first.execute(frame);
+            boolean secondHolds = second.execute(frame);
+            if (firstHolds) {
+                orbit.execute(frame);
+            } else if (secondHolds) {
+                navigate.execute(frame);
+            } else {
+                propel.execute(frame);
+            }
+        }
+
+        @Override
+        void replaceChild(AstNode child, AstNode replacement) {
+            if (child == first) {
+                first = (Condition) replacement;
+            } else {
+                second = (Condition) replacement;
+            }
+        }
+    }
+
+    // The condition is first evaluated outside the loop's scope, then inside it after each iteration,
+    // where the body's declarations can shadow outer variables. One scope serves every iteration.
+    // prepare sets the LoopOptimizer's hidden slots once the loop is known to run.
+    static final class Whirl extends Statement {
+        private final int base;
+        private final int[] ids;
+        private Condition condition;
+        private final Sequence prepare;
+        private final Sequence body;
+        private Condition repeat;
+
+        Whirl(Condition condition, int base, int[] ids, Sequence prepare, Sequence body, Condition repeat) {
+            this.condition = adopt(condition);
+            this.base = base;
+            this.ids = ids;
+            this.prepare = adopt(prepare);
+            this.body = adopt(body);
+            this.repeat = adopt(repeat);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            boolean holds = condition.execute(frame);
+            frame.enterScope(base, ids);
+            if (holds) {
+                prepare.execute(frame);
+            }
+            int iterations = 0;
+            while (holds) {
+                frame.governor.iterate(++iterations);
+                body.execute(frame);
+                holds = repeat.execute(frame);
+            }
+            frame.exitScope(base, ids);
+        }
+
+        @Override
+        void replaceChild(AstNode child, AstNode replacement) {
+            if (child == condition) {
+                condition = (Condition) replacement;
+            } else {
+                repeat = (Condition) replacement;
+            }
+        }
+    }
+
+    static final class Launch extends Statement {
+        private final int base;
+        private final int[] ids;
+        private final Sequence prepare;
+        private final Sequence body;
+        private Condition condition;
+
+        Launch(int base, int[] ids, Sequence prepare, Sequence body, Condition condition) {
+            this.base = base;
+            this.ids = ids;
+            this.prepare = adopt(prepare);
+            this.body = adopt(body);
+            this.condition = adopt(condition);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            frame.enterScope(base, ids);
+            prepare.execute(frame);
+            int iterations = 0;
+            do {
+                frame.governor.iterate(++iterations);
+                body.execute(frame);
+            } while (condition.execute(frame));
+            frame.exitScope(base, ids);
+        }
+
+        @Override
+        void replaceChild(AstNode child, AstNode replacement) {
+            condition = (Condition) replacement;
+        }
+    }
+}
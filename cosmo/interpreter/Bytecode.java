@@ -0,0 +1,105 @@
+package cosmo.interpreter;
+
+/**
+ * A compiled CosmoCode program: a flat {@code int[]} of opcodes and their
+ * inline operands, a pool of strings for output text and error messages,
+ * and the frame layout chosen by the {@link ScopeResolver}, followed by the
+ * hidden slots of the {@link LoopOptimizer}. Jump operands are absolute code
+ * indexes.
+ */
+public final class Bytecode {
+    // Operands follow the opcode in the code array; stack effects are listed after the dash.
+    // A variable is a frame slot. The _EITHER forms and RECEIVE take a candidate chain instead and
+    // use its first slot declared in the current run of its scope, failing with the message if none is.
+    public static final int HALT = 0; //                                      - 0
+    public static final int CONST = 1; // value                               - push value
+    public static final int LOAD = 2; // slot                                 - push slot
+    public static final int LOAD_EITHER = 3; // chain, message                 - push variable
+    public static final int DECLARE = 4; // slot, message                     - pop into slot, fail if already declared
+    public static final int STORE = 5; // slot                                - pop into slot
+    public static final int STORE_EITHER = 6; // chain, message                - pop into variable
+    public static final int ADD = 7; //                                       - pop 2, push 1
+    public static final int SUB = 8;
+    public static final int MUL = 9;
+    public static final int DIV = 10;
+    public static final int EQ = 11; //                                       - pop 2, push 1 or 0
+    public static final int NE = 12;
+    public static final int LT = 13;
+    public static final int LE = 14;
+    public static final int GT = 15;
+    public static final int GE = 16;
+    public static final int JUMP = 17; // target                              - 0
+    public static final int JUMP_IF_ZERO = 18; // target                      - pop 1
+    public static final int JUMP_IF_NOT_ZERO = 19; // target                  - pop 1
+    public static final int AND = 20; // target                               - jump keeping a 0 on top, else pop it
+    public static final int OR = 21; // target                                - jump keeping a 1 on top, else pop it
+    public static final int SELECT = 22; // second, none                      - pop 2; fall through, or jump to second or none
+    public static final int PRINT_TEXT = 23; // text                          - 0
+    public static final int PRINT_VALUE = 24; //                              - pop 1
+    public static final int RECEIVE = 25; // chain, prompt, message            - read a Comet into the variable
+    public static final int ENTER_SCOPE = 26; // scope                        - 0
+    public static final int EXIT_SCOPE = 27; // scope                         - 0
+    public static final int LOOP_START = 28; // loop                          - reset the iteration count
+    public static final int LOOP_CHECK = 29; // loop                          - count an iteration, fail past the limit
+    public static final int INCREMENT = 30; // slot, amount                   - add amount to slot
+
+    private final int[] code;
+    private final String[] strings;
+    private final int maxStack;
+    private final int slots;
+    private final int[] scopeBases;
+    private final int[][] scopeIds;
+    private final int[][] chains;
+    private final int loops;
+
+    Bytecode(int[] code, String[] strings, int maxStack, int slots, int[] scopeBases, int[][] scopeIds,
+            int[][] chains, int loops) {
+        this.code = code;
+        this.strings = strings;
+        this.maxStack = maxStack;
+        this.slots = slots;
+        this.scopeBases = scopeBases;
+        this.scopeIds = scopeIds;
+        this.chains = chains;
+        this.loops = loops;
+    }
+
+    int[] getCode() {
+        return code;
+    }
+
+    String[] getStrings() {
+        return strings;
+    }
+
+    int getMaxStack() {
+        return maxStack;
+    }
+
+    int getSlots() {
+        return slots;
+    }
+
+    // First slot of each scope
+    int[] getScopeBases() {
+        return scopeBases;
+    }
+
+    // Identifier ID held by each slot of each scope, for the value table
+    int[][] getScopeIds() {
+        return scopeIds;
+    }
+
+    // Candidate slots of each variable use that is only known at run time, innermost first
+    int[][] getChains() {
+        return chains;
+    }
+
+    int getLoops() {
+        return loops;
+    }
+
+    public int length() {
+        return code.length;
+    }
+}
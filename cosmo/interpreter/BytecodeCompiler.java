@@ -0,0 +1,460 @@
+package cosmo.interpreter;
+
+import cosmo.ParseTreeNode;
+import cosmo.grammar.NonTerminal;
+import cosmo.lexeme.Token;
+import cosmo.lexeme.TokenKind;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static cosmo.interpreter.Bytecode.*;
+import static cosmo.interpreter.ParseTrees.child;
+import static cosmo.interpreter.ParseTrees.kindOf;
+import static cosmo.interpreter.ParseTrees.leafToken;
+import static cosmo.interpreter.ParseTrees.literal;
+
+/**
+ * Lowers an accepted parse tree to {@link Bytecode}, with every variable
+ * bound to a frame slot by the {@link ScopeResolver}. The generated code
+ * keeps the evaluation order, scoping and error messages of the tree-walking
+ * Interpreter, including evaluating the Orbit and Navigate conditions before
+ * either branch runs, and evaluating a Whirl condition before its scope is
+ * entered. Loops follow the plan of a {@link LoopOptimizer}, whose hidden
+ * slots come after the resolver's.
+ */
+public final class BytecodeCompiler {
+    private int[] code = new int[256];
+    private int length;
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIndex = new HashMap<>();
+    private int depth;
+    private int maxStack;
+    private final ScopeResolver scopes = new ScopeResolver();
+    private final List<int[]> chains = new ArrayList<>();
+    private int loops;
+    private LoopOptimizer loop; // Plan of the loop body or condition being compiled, or null
+    private int temps;
+    private final List<Integer> tempOperands = new ArrayList<>(); // Code indexes of hidden slot numbers
+
+    private BytecodeCompiler() {
+    }
+
+    public static Bytecode compile(ParseTreeNode program) {
+        BytecodeCompiler compiler = new BytecodeCompiler();
+        int scope = compiler.scopes.enter(declarations(program), false);
+        compiler.emit(ENTER_SCOPE, scope);
+        for (ParseTreeNode item : program.getChildren()) {
+            compiler.item(item);
+        }
+        compiler.emit(EXIT_SCOPE, scope);
+        compiler.scopes.exit();
+        compiler.emit(HALT);
+        // Hidden slots go after the variables, now that their number is known
+        int slots = compiler.scopes.slotCount();
+        for (int operand : compiler.tempOperands) {
+            compiler.code[operand] += slots;
+        }
+        return new Bytecode(Arrays.copyOf(compiler.code, compiler.length), compiler.strings.toArray(new String[0]),
+                compiler.maxStack, slots + compiler.temps, compiler.scopes.scopeBases(),
+                compiler.scopes.scopeIds(), compiler.chains.toArray(new int[0][]), compiler.loops);
+    }
+
+    private void item(ParseTreeNode node) {
+        switch (kindOf(node)) {
+            case EXPR:
+                statement(node.getChildren().get(0));
+                break;
+            case ORBIT_STMT1: {
+                condition(child(node, NonTerminal.CONDITIONAL_EXP, "COMPILE"));
+                int skip = jump(JUMP_IF_ZERO);
+                block(child(node, NonTerminal.STMT, "COMPILE"));
+                patch(skip);
+                break;
+            }
+            case ORBIT_STMT2: {
+                condition(child(node, NonTerminal.CONDITIONAL_EXP, "COMPILE"));
+                int otherwise = jump(JUMP_IF_ZERO);
+                block(child(node, NonTerminal.STMT, "COMPILE"));
+                int end = jump(JUMP);
+                patch(otherwise);
+                block(child(child(node, NonTerminal.PROPEL_STMT, "COMPILE"), NonTerminal.STMT, "COMPILE"));
+                patch(end);
+                break;
+            }
+            case ORBIT_STMT3: {
+                ParseTreeNode navigate = child(node, NonTerminal.NAVIGATE_STMT, "COMPILE");
+                // Both conditions are evaluated before a branch is chosen
+                condition(child(node, NonTerminal.CONDITIONAL_EXP, "COMPILE"));
+                condition(child(navigate, NonTerminal.CONDITIONAL_EXP, "COMPILE"));
+                emit(SELECT, 0, 0);
+                int second = length - 2;
+                int none = length - 1;
+                block(child(node, NonTerminal.STMT, "COMPILE"));
+                int end = jump(JUMP);
+                patch(second);
+                block(child(navigate, NonTerminal.STMT, "COMPILE"));
+                int end2 = jump(JUMP);
+                patch(none);
+                block(child(child(node, NonTerminal.PROPEL_STMT, "COMPILE"), NonTerminal.STMT, "COMPILE"));
+                patch(end);
+                patch(end2);
+                break;
+            }
+            case WHIRL_LOOP: {
+                int loop = loops++;
+                ParseTreeNode condition = child(node, NonTerminal.CONDITIONAL_EXP, "COMPILE");
+                ParseTreeNode body = child(node, NonTerminal.STMT, "COMPILE");
+                condition(condition);
+                int scope = scopes.enter(declarations(body), true);
+                LoopOptimizer plan = LoopOptimizer.plan(body, condition, scopes);
+                emit(ENTER_SCOPE, scope);
+                emit(LOOP_START, loop);
+                int exit = jump(JUMP_IF_ZERO);
+                prepare(plan);
+                int top = length;
+                emit(LOOP_CHECK, loop);
+                this.loop = plan;
+                statements(body);
+                condition(condition);
+                this.loop = null;
+                emit(JUMP_IF_NOT_ZERO, top);
+                patch(exit);
+                emit(EXIT_SCOPE, scope);
+                scopes.exit();
+                break;
+            }
+            case LAUNCH_WHIRL_LOOP: {
+                int loop = loops++;
+                ParseTreeNode body = child(node, NonTerminal.STMT, "COMPILE");
+                ParseTreeNode condition = child(node, NonTerminal.CONDITIONAL_EXP, "COMPILE");
+                int scope = scopes.enter(declarations(body), true);
+                LoopOptimizer plan = LoopOptimizer.plan(body, condition, scopes);
+                emit(ENTER_SCOPE, scope);
+                emit(LOOP_START, loop);
+                prepare(plan);
+                int top = length;
+                emit(LOOP_CHECK, loop);
+                this.loop = plan;
+                statements(body);
+                condition(condition);
+                this.loop = null;
+                emit(JUMP_IF_NOT_ZERO, top);
+                emit(EXIT_SCOPE, scope);
+                scopes.exit();
+                break;
+            }
+            default:
+                throw new IllegalStateException("COMPILE ERROR: Unexpected " + node.getSymbol() + " in program.");
+        }
+    }
+
+    // Computes the plan's hidden slots before the first iteration
+    private void prepare(LoopOptimizer plan) {
+        for (LoopOptimizer.Hoisted hoisted : plan.hoisted()) {
+            if (kindOf(hoisted.node) == NonTerminal.ARITH_EXP) {
+                arithmetic(hoisted.node);
+            } else {
+                predicate(hoisted.node);
+            }
+            emitTemp(STORE, hoisted.temp);
+        }
+        for (LoopOptimizer.Reduction reduction : plan.reductions()) {
+            arithmetic(reduction.product);
+            emitTemp(STORE, reduction.temp);
+            if (reduction.stepTemp != LoopOptimizer.NONE) {
+                emit(CONST, reduction.step);
+                arithmetic(reduction.factor);
+                emit(MUL);
+                emitTemp(STORE, reduction.stepTemp);
+            }
+        }
+        temps = Math.max(temps, plan.temps());
+    }
+
+    // A branch body runs in a scope of its own
+    private void block(ParseTreeNode stmt) {
+        int scope = scopes.enter(declarations(stmt), false);
+        emit(ENTER_SCOPE, scope);
+        statements(stmt);
+        emit(EXIT_SCOPE, scope);
+        scopes.exit();
+    }
+
+    // Identifier IDs declared directly in a Program or stmt, in order
+    private static List<Integer> declarations(ParseTreeNode node) {
+        List<Integer> ids = new ArrayList<>();
+        for (ParseTreeNode child : node.getChildren()) {
+            if (kindOf(child) == NonTerminal.EXPR && kindOf(child.getChildren().get(0)) == NonTerminal.DEC_STMT) {
+                ids.add(leafToken(child(child.getChildren().get(0), NonTerminal.IDENTIFIER, "COMPILE")).getId());
+            }
+        }
+        return ids;
+    }
+
+    private void statements(ParseTreeNode stmt) {
+        for (ParseTreeNode child : stmt.getChildren()) {
+            if (kindOf(child) == NonTerminal.EXPR) {
+                statement(child.getChildren().get(0));
+            }
+        }
+    }
+
+    private void statement(ParseTreeNode node) {
+        switch (kindOf(node)) {
+            case DEC_STMT: {
+                Token target = leafToken(child(node, NonTerminal.IDENTIFIER, "COMPILE"));
+                arithmetic(node.getChildren().get(3));
+                emit(DECLARE, scopes.declare(target.getId()), string("DECLARATION ERROR: " + target.getLexeme()
+                        + " has already been declared in the current scope."));
+                break;
+            }
+            case ASSIGN_STMT: {
+                Token target = leafToken(child(node, NonTerminal.IDENTIFIER, "COMPILE"));
+                ScopeResolver.Binding binding = scopes.resolve(target.getId());
+                Integer amount = LoopOptimizer.increment(node);
+                if (binding.definite && amount != null) {
+                    emit(INCREMENT, binding.slots[0], amount);
+                } else {
+                    arithmetic(node.getChildren().get(2));
+                    store(target, "ASSIGNMENT ERROR: " + target.getLexeme() + " has not been declared.");
+                }
+                if (loop != null) {
+                    advance(loop.updates(target.getId()));
+                }
+                break;
+            }
+            case TRANSMISSION_STMT: {
+                ParseTreeNode operand = node.getChildren().get(2);
+                Token token = leafToken(operand);
+                if (kindOf(operand) == NonTerminal.STRING) {
+                    emit(PRINT_TEXT, string(token.getLexeme().replace("\"", "")));
+                } else {
+                    load(token, "TRANSMISSION ERROR: " + token.getLexeme()
+                            + " has not yet been declared or is out of scope.");
+                    emit(PRINT_VALUE);
+                }
+                break;
+            }
+            case RECEPTION_STMT: {
+                Token target = leafToken(child(node, NonTerminal.IDENTIFIER, "COMPILE"));
+                Token prompt = leafToken(child(node, NonTerminal.STRING, "COMPILE"));
+                emit(RECEIVE, chain(scopes.resolve(target.getId())), string(prompt.getLexeme().replace("\"", "")),
+                        string("RECEPTION ERROR: " + target.getLexeme() + " has not yet been declared."));
+                break;
+            }
+            default:
+                // A bare arithmetic expression has no effect
+                break;
+        }
+    }
+
+    // Brings the products of an induction variable up to date after its step
+    private void advance(List<LoopOptimizer.Reduction> reductions) {
+        for (LoopOptimizer.Reduction reduction : reductions) {
+            if (reduction.stepTemp == LoopOptimizer.NONE) {
+                emitTemp(INCREMENT, reduction.temp, reduction.amount());
+            } else {
+                emitTemp(LOAD, reduction.temp);
+                emitTemp(LOAD, reduction.stepTemp);
+                emit(ADD);
+                emitTemp(STORE, reduction.temp);
+            }
+        }
+    }
+
+    // An identifier, comet_literal or arithExp; leaves its value on the stack
+    private void arithmetic(ParseTreeNode node) {
+        if (loadTemp(node)) {
+            return;
+        }
+        switch (kindOf(node)) {
+            case IDENTIFIER: {
+                Token token = leafToken(node);
+                load(token, "ARITHMETIC ERROR: " + token.getLexeme() + " is not defined.");
+                break;
+            }
+            case COMET_LITERAL:
+                emit(CONST, literal(node));
+                break;
+            default:
+                binary(node, this::arithmetic);
+                break;
+        }
+    }
+
+    // conditionalExp -> ( relationalExp | logicalExp ); leaves 1 or 0 on the stack
+    private void condition(ParseTreeNode conditionalExp) {
+        predicate(conditionalExp.getChildren().get(1));
+    }
+
+    private void predicate(ParseTreeNode node) {
+        if (loadTemp(node)) {
+            return;
+        }
+        List<ParseTreeNode> children = node.getChildren();
+        if (kindOf(node) == NonTerminal.LOGICAL_EXP) {
+            predicate(children.get(0));
+            int end = jump(children.get(1).getToken().getKind() == TokenKind.AND ? Bytecode.AND : Bytecode.OR);
+            predicate(children.get(2));
+            patch(end);
+        } else {
+            binary(node, this::comparisonOperand);
+        }
+    }
+
+    private void comparisonOperand(ParseTreeNode node) {
+        if (kindOf(node) == NonTerminal.IDENTIFIER) {
+            Token token = leafToken(node);
+            load(token, "RELATIONAL ERROR: " + token.getLexeme() + " is not defined.");
+        } else {
+            arithmetic(node);
+        }
+    }
+
+    private void binary(ParseTreeNode node, Consumer<ParseTreeNode> operand) {
+        List<ParseTreeNode> children = node.getChildren();
+        operand.accept(children.get(0));
+        operand.accept(children.get(2));
+        emit(operatorCode(children.get(1).getToken().getKind()));
+    }
+
+    private static int operatorCode(TokenKind operator) {
+        switch (operator) {
+            case PLUS:
+                return ADD;
+            case MINUS:
+                return SUB;
+            case MULT:
+                return MUL;
+            case DIV:
+                return DIV;
+            case EQ:
+                return EQ;
+            case NOT:
+                return NE;
+            case LESS:
+                return LT;
+            case LESS_EQ:
+                return LE;
+            case GREAT:
+                return GT;
+            case GREAT_EQ:
+                return GE;
+            default:
+                throw new IllegalStateException("COMPILE ERROR: Unknown operator: " + operator + ".");
+        }
+    }
+
+    // Pushes the variable the identifier refers to here; the message is used if there is none
+    private void load(Token token, String message) {
+        ScopeResolver.Binding binding = scopes.resolve(token.getId());
+        if (binding.definite) {
+            emit(LOAD, binding.slots[0]);
+        } else {
+            emit(LOAD_EITHER, chain(binding), string(message));
+        }
+    }
+
+    private void store(Token token, String message) {
+        ScopeResolver.Binding binding = scopes.resolve(token.getId());
+        if (binding.definite) {
+            emit(STORE, binding.slots[0]);
+        } else {
+            emit(STORE_EITHER, chain(binding), string(message));
+        }
+    }
+
+    // Pushes the hidden slot the current loop keeps the node's value in, if there is one
+    private boolean loadTemp(ParseTreeNode node) {
+        int temp = loop != null ? loop.temp(node) : LoopOptimizer.NONE;
+        if (temp == LoopOptimizer.NONE) {
+            return false;
+        }
+        emitTemp(LOAD, temp);
+        return true;
+    }
+
+    // Emits an instruction whose first operand is a hidden slot, numbered from zero until compile() ends
+    private void emitTemp(int opcode, int temp, int... operands) {
+        int[] all = new int[operands.length + 1];
+        all[0] = temp;
+        System.arraycopy(operands, 0, all, 1, operands.length);
+        emit(opcode, all);
+        tempOperands.add(length - all.length);
+    }
+
+    private int chain(ScopeResolver.Binding binding) {
+        chains.add(binding.slots);
+        return chains.size() - 1;
+    }
+
+    private int string(String text) {
+        Integer index = stringIndex.get(text);
+        if (index == null) {
+            index = strings.size();
+            strings.add(text);
+            stringIndex.put(text, index);
+        }
+        return index;
+    }
+
+    // Emits a jump with a placeholder target; returns the operand index for patch()
+    private int jump(int opcode) {
+        emit(opcode, 0);
+        return length - 1;
+    }
+
+    private void patch(int operand) {
+        code[operand] = length;
+    }
+
+    private void emit(int opcode, int... operands) {
+        if (length + operands.length + 1 > code.length) {
+            code = Arrays.copyOf(code, Math.max(code.length * 2, length + operands.length + 1));
+        }
+        code[length++] = opcode;
+        for (int operand : operands) {
+            code[length++] = operand;
+        }
+        depth += stackEffect(opcode);
+        maxStack = Math.max(maxStack, depth);
+    }
+
+    // Net effect on the stack along the fall-through path
+    private static int stackEffect(int opcode) {
+        switch (opcode) {
+            case CONST:
+            case LOAD:
+            case LOAD_EITHER:
+                return 1;
+            case SELECT:
+                return -2;
+            case ADD:
+            case SUB:
+            case MUL:
+            case Bytecode.DIV:
+            case Bytecode.EQ:
+            case NE:
+            case LT:
+            case LE:
+            case GT:
+            case GE:
+            case JUMP_IF_ZERO:
+            case JUMP_IF_NOT_ZERO:
+            case Bytecode.AND:
+            case Bytecode.OR:
+            case DECLARE:
+            case STORE:
+            case STORE_EITHER:
+            case PRINT_VALUE:
+                return -1;
+            default:
+                return 0;
+        }
+    }
+
+}
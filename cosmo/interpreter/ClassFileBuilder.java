@@ -0,0 +1,311 @@
+package cosmo.interpreter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough of the JVM class file format for the {@link JitCompiler}: a
+ * final class with one static method, a constant pool, and a code buffer
+ * with forward and backward labels.
+ * <p>
+ * Classes are written as version 49 so the JVM infers stack and local types
+ * itself, and no StackMapTable has to be computed. Branch offsets are 16
+ * bits, so a method is limited to {@link #MAX_CODE} bytes.
+ */
+final class ClassFileBuilder {
+    static final int MAX_CODE = Short.MAX_VALUE;
+
+    // Opcodes used by the JitCompiler
+    static final int ICONST_0 = 0x03;
+    static final int ICONST_1 = 0x04;
+    static final int BIPUSH = 0x10;
+    static final int SIPUSH = 0x11;
+    static final int LDC = 0x12;
+    static final int LDC_W = 0x13;
+    static final int ILOAD = 0x15;
+    static final int ALOAD_0 = 0x2a;
+    static final int ISTORE = 0x36;
+    static final int POP = 0x57;
+    static final int DUP = 0x59;
+    static final int SWAP = 0x5f;
+    static final int IADD = 0x60;
+    static final int ISUB = 0x64;
+    static final int IMUL = 0x68;
+    static final int IDIV = 0x6c;
+    static final int IINC = 0x84;
+    static final int IFEQ = 0x99;
+    static final int IFNE = 0x9a;
+    static final int IFGE = 0x9c;
+    static final int IF_ICMPEQ = 0x9f;
+    static final int IF_ICMPNE = 0xa0;
+    static final int IF_ICMPLT = 0xa1;
+    static final int IF_ICMPGE = 0xa2;
+    static final int IF_ICMPGT = 0xa3;
+    static final int IF_ICMPLE = 0xa4;
+    static final int GOTO = 0xa7;
+    static final int RETURN = 0xb1;
+    static final int INVOKEVIRTUAL = 0xb6;
+    static final int INVOKESPECIAL = 0xb7;
+    static final int NEW = 0xbb;
+    static final int ATHROW = 0xbf;
+    static final int WIDE = 0xc4;
+
+    private static final int CLASS_VERSION = 49;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> poolIndex = new HashMap<>();
+    private int poolCount = 1;
+
+    private byte[] code = new byte[1024];
+    private int length;
+    private int[] labels = new int[64];
+    private int labelCount;
+    // Code positions of branch instructions and the label each one targets
+    private final List<int[]> branches = new ArrayList<>();
+
+    int label() {
+        if (labelCount == labels.length) {
+            labels = Arrays.copyOf(labels, labelCount * 2);
+        }
+        labels[labelCount] = -1;
+        return labelCount++;
+    }
+
+    void mark(int label) {
+        labels[label] = length;
+    }
+
+    int length() {
+        return length;
+    }
+
+    void op(int opcode) {
+        u1(opcode);
+    }
+
+    void branch(int opcode, int label) {
+        branches.add(new int[] {length, label});
+        u1(opcode);
+        u2(0);
+    }
+
+    void pushInt(int value) {
+        if (value >= -1 && value <= 5) {
+            u1(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            u1(BIPUSH);
+            u1(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            u1(SIPUSH);
+            u2(value);
+        } else {
+            ldc(constant("I" + value, 3, value));
+        }
+    }
+
+    void pushString(String value) {
+        ldc(constant("S" + value, 8, utf8(value)));
+    }
+
+    // ILOAD or ISTORE of a local, widened past 255
+    void local(int opcode, int index) {
+        if (index > 255) {
+            u1(WIDE);
+            u1(opcode);
+            u2(index);
+        } else {
+            u1(opcode);
+            u1(index);
+        }
+    }
+
+    void increment(int index, int amount) {
+        if (index > 255) {
+            u1(WIDE);
+            u1(IINC);
+            u2(index);
+            u2(amount);
+        } else {
+            u1(IINC);
+            u1(index);
+            u1(amount);
+        }
+    }
+
+    void typeOp(int opcode, String className) {
+        u1(opcode);
+        u2(classRef(className));
+    }
+
+    void invoke(int opcode, String owner, String name, String descriptor) {
+        u1(opcode);
+        u2(methodRef(owner, name, descriptor));
+    }
+
+    /**
+     * The class file of {@code className} with the code buffer as the body
+     * of {@code public static void name(descriptor)}, or null if the code or
+     * the constant pool does not fit the format.
+     */
+    byte[] toClass(String className, String name, String descriptor, int maxStack, int maxLocals) {
+        if (length > MAX_CODE || maxLocals > 0xFFFF || maxStack > 0xFFFF) {
+            return null;
+        }
+        for (int[] branch : branches) {
+            int offset = labels[branch[1]] - branch[0];
+            code[branch[0] + 1] = (byte) (offset >> 8);
+            code[branch[0] + 2] = (byte) offset;
+        }
+        int thisClass = classRef(className);
+        int superClass = classRef("java/lang/Object");
+        int methodName = utf8(name);
+        int methodDescriptor = utf8(descriptor);
+        int codeName = utf8("Code");
+        if (poolCount > 0xFFFF) {
+            return null;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(poolBytes.size() + length + 64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(CLASS_VERSION);
+            out.writeShort(poolCount);
+            poolBytes.writeTo(out);
+            out.writeShort(ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0); // Interfaces
+            out.writeShort(0); // Fields
+            out.writeShort(1); // Methods
+            out.writeShort(ACC_PUBLIC | ACC_STATIC);
+            out.writeShort(methodName);
+            out.writeShort(methodDescriptor);
+            out.writeShort(1); // Method attributes
+            out.writeShort(codeName);
+            out.writeInt(12 + length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(length);
+            out.write(code, 0, length);
+            out.writeShort(0); // Exception table
+            out.writeShort(0); // Code attributes
+            out.writeShort(0); // Class attributes
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // A ByteArrayOutputStream does not throw
+        }
+    }
+
+    private void ldc(int index) {
+        if (index > 255) {
+            u1(LDC_W);
+            u2(index);
+        } else {
+            u1(LDC);
+            u1(index);
+        }
+    }
+
+    private int utf8(String value) {
+        Integer index = poolIndex.get("U" + value);
+        if (index != null) {
+            return index;
+        }
+        try {
+            pool.writeByte(1);
+            pool.writeUTF(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        poolIndex.put("U" + value, poolCount);
+        return poolCount++;
+    }
+
+    private int classRef(String name) {
+        return constant("C" + name, 7, utf8(name));
+    }
+
+    private int methodRef(String owner, String name, String descriptor) {
+        String key = "M" + owner + '.' + name + descriptor;
+        Integer index = poolIndex.get(key);
+        if (index != null) {
+            return index;
+        }
+        int ownerIndex = classRef(owner);
+        int nameAndType = nameAndType(name, descriptor);
+        try {
+            pool.writeByte(10);
+            pool.writeShort(ownerIndex);
+            pool.writeShort(nameAndType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        poolIndex.put(key, poolCount);
+        return poolCount++;
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        String key = "N" + name + descriptor;
+        Integer index = poolIndex.get(key);
+        if (index != null) {
+            return index;
+        }
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        try {
+            pool.writeByte(12);
+            pool.writeShort(nameIndex);
+            pool.writeShort(descriptorIndex);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        poolIndex.put(key, poolCount);
+        return poolCount++;
+    }
+
+    // A CONSTANT_Class, String (u2 operand) or Integer (u4 operand) entry
+    private int constant(String key, int tag, int operand) {
+        Integer index = poolIndex.get(key);
+        if (index != null) {
+            return index;
+        }
+        try {
+            pool.writeByte(tag);
+            if (tag == 3) {
+                pool.writeInt(operand);
+            } else {
+                pool.writeShort(operand);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        poolIndex.put(key, poolCount);
+        return poolCount++;
+    }
+
+    private void u1(int value) {
+        if (length == code.length) {
+            code = Arrays.copyOf(code, length * 2);
+        }
+        code[length++] = (byte) value;
+    }
+
+    private void u2(int value) {
+        u1(value >> 8);
+        u1(value);
+    }
+}
@@ -0,0 +1,402 @@
+package cosmo.interpreter;
+
+import cosmo.FlatTree;
+import cosmo.ParseTreeNode;
+import cosmo.grammar.NonTerminal;
+import cosmo.lexeme.Token;
+import cosmo.lexeme.TokenKind;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static cosmo.interpreter.ParseTrees.child;
+import static cosmo.interpreter.ParseTrees.comet;
+import static cosmo.interpreter.ParseTrees.isConstant;
+import static cosmo.interpreter.ParseTrees.kindOf;
+import static cosmo.interpreter.ParseTrees.leafToken;
+import static cosmo.interpreter.ParseTrees.literal;
+
+/**
+ * Simplifies an accepted parse tree before it runs, without changing what
+ * either engine prints, stores in the scope history or reports as an error.
+ * <ul>
+ * <li>arithExp, relationalExp and logicalExp subtrees with constant operands
+ * become a comet_literal, or a comparison of two literals. A division by a
+ * constant zero is left in place so it still fails when it runs.</li>
+ * <li>A variable declared once in the whole program with a constant value,
+ * and never assigned or received, is replaced by that value wherever the
+ * declaration has already run in an enclosing scope.</li>
+ * <li>Orbit, Navigate and Propel branches that can never run are removed.
+ * A branch that must run keeps its own scope, so the Orbit becomes an
+ * Orbit with an always-true condition.</li>
+ * <li>Bare arithmetic statements, which have no effect, are dropped.</li>
+ * </ul>
+ * A logicalExp only loses an operand that would not have been evaluated or
+ * that cannot fail, so undefined variables are still reported.
+ * <p>
+ * Before folding, every comet_literal is checked to fit in a Comet, so all
+ * engines reject an out-of-range literal with the same "ARITHMETIC ERROR"
+ * before the program runs.
+ */
+public final class ConstantFolder {
+    private final Map<Integer, Integer> declarationCounts = new HashMap<>();
+    private final Set<Integer> mutated = new HashSet<>();
+    private final Map<Integer, Integer> constants = new HashMap<>();
+    // Identifier IDs whose declaration has run, per open scope
+    private final ArrayDeque<Set<Integer>> scopes = new ArrayDeque<>();
+
+    private ConstantFolder() {
+    }
+
+    public static ParseTreeNode fold(ParseTreeNode program) {
+        return foldTree(program).root();
+    }
+
+    // The folded program as a tree that any number of runs may view at once, each through its own root()
+    public static FlatTree foldTree(ParseTreeNode program) {
+        checkLiterals(program);
+        ConstantFolder folder = new ConstantFolder();
+        for (ParseTreeNode item : program.getChildren()) {
+            folder.count(item);
+        }
+        ParseTreeNode folded = new ParseTreeNode(NonTerminal.PROGRAM);
+        folder.scopes.push(new HashSet<>());
+        for (ParseTreeNode item : program.getChildren()) {
+            ParseTreeNode result = folder.item(item);
+            if (result != null) {
+                folded.addChild(result);
+            }
+        }
+        return FlatTree.of(folded);
+    }
+
+    // Fails on the first comet_literal, in source order, that does not fit in a Comet
+    private static void checkLiterals(ParseTreeNode program) {
+        ArrayDeque<ParseTreeNode> pending = new ArrayDeque<>();
+        pending.push(program);
+        while (!pending.isEmpty()) {
+            ParseTreeNode node = pending.pop();
+            if (kindOf(node) == NonTerminal.COMET_LITERAL) {
+                comet(leafToken(node));
+                continue;
+            }
+            List<ParseTreeNode> children = node.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pending.push(children.get(i));
+            }
+        }
+    }
+
+    // Counts declarations and notes assignment and reception targets
+    private void count(ParseTreeNode node) {
+        NonTerminal kind = kindOf(node);
+        if (kind == NonTerminal.DEC_STMT) {
+            declarationCounts.merge(target(node), 1, Integer::sum);
+        } else if (kind == NonTerminal.ASSIGN_STMT || kind == NonTerminal.RECEPTION_STMT) {
+            mutated.add(target(node));
+        }
+        if (kind != null && kind != NonTerminal.ARITH_EXP) {
+            for (ParseTreeNode child : node.getChildren()) {
+                count(child);
+            }
+        }
+    }
+
+    private ParseTreeNode item(ParseTreeNode node) {
+        switch (kindOf(node)) {
+            case EXPR:
+                return expr(node);
+            case ORBIT_STMT1: {
+                ParseTreeNode condition = conditional(child(node, NonTerminal.CONDITIONAL_EXP, "FOLD"));
+                Boolean value = constant(condition);
+                if (value == Boolean.FALSE) {
+                    return null;
+                }
+                return orbit(node, condition, block(child(node, NonTerminal.STMT, "FOLD")));
+            }
+            case ORBIT_STMT2: {
+                ParseTreeNode condition = conditional(child(node, NonTerminal.CONDITIONAL_EXP, "FOLD"));
+                Boolean value = constant(condition);
+                if (value == Boolean.TRUE) {
+                    return orbit(node, condition, block(child(node, NonTerminal.STMT, "FOLD")));
+                } else if (value == Boolean.FALSE) {
+                    ParseTreeNode propel = child(child(node, NonTerminal.PROPEL_STMT, "FOLD"), NonTerminal.STMT, "FOLD");
+                    return orbit(node, alwaysTrue(condition), block(propel));
+                }
+                return copy(node, condition, block(child(node, NonTerminal.STMT, "FOLD")),
+                        branch(child(node, NonTerminal.PROPEL_STMT, "FOLD"), null));
+            }
+            case ORBIT_STMT3: {
+                ParseTreeNode navigate = child(node, NonTerminal.NAVIGATE_STMT, "FOLD");
+                // Both conditions run before a branch is chosen, so one can only go if it is constant
+                ParseTreeNode first = conditional(child(node, NonTerminal.CONDITIONAL_EXP, "FOLD"));
+                ParseTreeNode second = conditional(child(navigate, NonTerminal.CONDITIONAL_EXP, "FOLD"));
+                Boolean firstValue = constant(first);
+                Boolean secondValue = constant(second);
+                ParseTreeNode propel = child(node, NonTerminal.PROPEL_STMT, "FOLD");
+                if (firstValue == Boolean.TRUE && secondValue != null) {
+                    return orbit(node, first, block(child(node, NonTerminal.STMT, "FOLD")));
+                } else if (firstValue == Boolean.FALSE && secondValue == Boolean.TRUE) {
+                    return orbit(node, second, block(child(navigate, NonTerminal.STMT, "FOLD")));
+                } else if (firstValue == Boolean.FALSE && secondValue == Boolean.FALSE) {
+                    return orbit(node, alwaysTrue(second), block(child(propel, NonTerminal.STMT, "FOLD")));
+                } else if (firstValue == Boolean.FALSE) {
+                    ParseTreeNode orbit = new ParseTreeNode(NonTerminal.ORBIT_STMT2);
+                    orbit.addChild(node.getChildren().get(0));
+                    orbit.addChild(second);
+                    orbit.addChild(block(child(navigate, NonTerminal.STMT, "FOLD")));
+                    orbit.addChild(branch(propel, null));
+                    orbit.addChild(node.getChildren().get(node.getChildren().size() - 1));
+                    return orbit;
+                }
+                return copy(node, first, block(child(node, NonTerminal.STMT, "FOLD")), branch(navigate, second),
+                        branch(propel, null));
+            }
+            case WHIRL_LOOP: {
+                // The condition is first evaluated outside the loop's scope
+                ParseTreeNode condition = conditional(child(node, NonTerminal.CONDITIONAL_EXP, "FOLD"));
+                scopes.push(new HashSet<>());
+                ParseTreeNode body = statements(child(node, NonTerminal.STMT, "FOLD"));
+                scopes.pop();
+                return copy(node, condition, body);
+            }
+            case LAUNCH_WHIRL_LOOP: {
+                scopes.push(new HashSet<>());
+                ParseTreeNode body = statements(child(node, NonTerminal.STMT, "FOLD"));
+                ParseTreeNode condition = conditional(child(node, NonTerminal.CONDITIONAL_EXP, "FOLD"));
+                scopes.pop();
+                return copy(node, body, condition);
+            }
+            default:
+                return node;
+        }
+    }
+
+    // A statement, or null if it has no effect
+    private ParseTreeNode expr(ParseTreeNode node) {
+        ParseTreeNode statement = node.getChildren().get(0);
+        ParseTreeNode folded;
+        switch (kindOf(statement)) {
+            case DEC_STMT: {
+                ParseTreeNode value = arithmetic(statement.getChildren().get(3));
+                int id = target(statement);
+                if (declarationCounts.get(id) == 1 && !mutated.contains(id) && isConstant(value)) {
+                    constants.put(id, literal(value));
+                }
+                scopes.peek().add(id);
+                folded = replace(statement, 3, value);
+                break;
+            }
+            case ASSIGN_STMT:
+                folded = replace(statement, 2, arithmetic(statement.getChildren().get(2)));
+                break;
+            case TRANSMISSION_STMT:
+            case RECEPTION_STMT:
+                folded = statement;
+                break;
+            default:
+                return null;
+        }
+        ParseTreeNode expr = new ParseTreeNode(NonTerminal.EXPR);
+        expr.addChild(folded);
+        return expr;
+    }
+
+    // A branch body in a scope of its own
+    private ParseTreeNode block(ParseTreeNode stmt) {
+        scopes.push(new HashSet<>());
+        ParseTreeNode folded = statements(stmt);
+        scopes.pop();
+        return folded;
+    }
+
+    private ParseTreeNode statements(ParseTreeNode stmt) {
+        ParseTreeNode folded = new ParseTreeNode(NonTerminal.STMT);
+        for (ParseTreeNode child : stmt.getChildren()) {
+            if (kindOf(child) != NonTerminal.EXPR) {
+                folded.addChild(child);
+            } else {
+                ParseTreeNode expr = expr(child);
+                if (expr != null) {
+                    folded.addChild(expr);
+                }
+            }
+        }
+        return folded;
+    }
+
+    // navigateStmt or propelStmt with its body folded, and the folded condition if it has one
+    private ParseTreeNode branch(ParseTreeNode node, ParseTreeNode condition) {
+        return condition != null ? copy(node, condition, block(child(node, NonTerminal.STMT, "FOLD")))
+                : copy(node, block(child(node, NonTerminal.STMT, "FOLD")));
+    }
+
+    // An Orbit that runs body in its own scope when condition holds
+    private static ParseTreeNode orbit(ParseTreeNode node, ParseTreeNode condition, ParseTreeNode body) {
+        ParseTreeNode orbit = new ParseTreeNode(NonTerminal.ORBIT_STMT1);
+        orbit.addChild(node.getChildren().get(0));
+        orbit.addChild(condition);
+        orbit.addChild(body);
+        orbit.addChild(node.getChildren().get(node.getChildren().size() - 1));
+        return orbit;
+    }
+
+    // conditionalExp -> ( relationalExp | logicalExp )
+    private ParseTreeNode conditional(ParseTreeNode node) {
+        return replace(node, 1, predicate(node.getChildren().get(1)));
+    }
+
+    private ParseTreeNode predicate(ParseTreeNode node) {
+        List<ParseTreeNode> children = node.getChildren();
+        if (kindOf(node) == NonTerminal.LOGICAL_EXP) {
+            boolean and = children.get(1).getToken().getKind() == TokenKind.AND;
+            ParseTreeNode left = predicate(children.get(0));
+            Boolean leftValue = value(left);
+            if (leftValue != null) {
+                // Constant false && x and true || x never evaluate x
+                return leftValue != and ? left : predicate(children.get(2));
+            }
+            ParseTreeNode right = predicate(children.get(2));
+            if (Boolean.valueOf(and).equals(value(right))) {
+                return left; // x && true and x || false are just x
+            }
+            return binary(node, left, right);
+        }
+        return binary(node, arithmetic(children.get(0)), arithmetic(children.get(2)));
+    }
+
+    // An identifier, comet_literal or arithExp
+    private ParseTreeNode arithmetic(ParseTreeNode node) {
+        switch (kindOf(node)) {
+            case IDENTIFIER: {
+                Token token = leafToken(node);
+                Integer value = constants.get(token.getId());
+                return value != null && declared(token.getId()) ? literalNode(value, token) : node;
+            }
+            case COMET_LITERAL:
+                return node;
+            default: {
+                List<ParseTreeNode> children = node.getChildren();
+                ParseTreeNode left = arithmetic(children.get(0));
+                ParseTreeNode right = arithmetic(children.get(2));
+                if (!isConstant(left) || !isConstant(right)) {
+                    return binary(node, left, right);
+                }
+                int a = literal(left);
+                int b = literal(right);
+                switch (children.get(1).getToken().getKind()) {
+                    case PLUS:
+                        return literalNode(a + b, leafToken(left));
+                    case MINUS:
+                        return literalNode(a - b, leafToken(left));
+                    case MULT:
+                        return literalNode(a * b, leafToken(left));
+                    case DIV:
+                        // Left for the engines, which report the division by zero when it runs
+                        return b == 0 ? binary(node, left, right) : literalNode(a / b, leafToken(left));
+                    default:
+                        return binary(node, left, right);
+                }
+            }
+        }
+    }
+
+    // Whether a declaration of id has run in one of the open scopes
+    private boolean declared(int id) {
+        for (Set<Integer> scope : scopes) {
+            if (scope.contains(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Value of a conditionalExp, or null if it is only known at run time
+    private static Boolean constant(ParseTreeNode conditional) {
+        return value(conditional.getChildren().get(1));
+    }
+
+    // Value of a relationalExp between two literals, or null
+    private static Boolean value(ParseTreeNode node) {
+        if (kindOf(node) != NonTerminal.RELATIONAL_EXP) {
+            return null;
+        }
+        List<ParseTreeNode> children = node.getChildren();
+        if (!isConstant(children.get(0)) || !isConstant(children.get(2))) {
+            return null;
+        }
+        int a = literal(children.get(0));
+        int b = literal(children.get(2));
+        switch (children.get(1).getToken().getKind()) {
+            case EQ:
+                return a == b;
+            case NOT:
+                return a != b;
+            case LESS:
+                return a < b;
+            case LESS_EQ:
+                return a <= b;
+            case GREAT:
+                return a > b;
+            case GREAT_EQ:
+                return a >= b;
+            default:
+                return null;
+        }
+    }
+
+    // The conditionalExp ( 0 == 0 ), placed at the given condition
+    private static ParseTreeNode alwaysTrue(ParseTreeNode conditional) {
+        Token at = conditional.getChildren().get(0).getToken();
+        ParseTreeNode relational = new ParseTreeNode(NonTerminal.RELATIONAL_EXP);
+        relational.addChild(literalNode(0, at));
+        relational.addChild(new ParseTreeNode(new Token(TokenKind.EQ, "==", at.getLine(), at.getColumn())));
+        relational.addChild(literalNode(0, at));
+        return replace(conditional, 1, relational);
+    }
+
+    private static ParseTreeNode literalNode(int value, Token at) {
+        ParseTreeNode literal = new ParseTreeNode(NonTerminal.COMET_LITERAL);
+        literal.addChild(new ParseTreeNode(
+                new Token(TokenKind.COMET_LITERAL, Integer.toString(value), at.getLine(), at.getColumn())));
+        return literal;
+    }
+
+    private static ParseTreeNode binary(ParseTreeNode node, ParseTreeNode left, ParseTreeNode right) {
+        List<ParseTreeNode> children = node.getChildren();
+        if (left == children.get(0) && right == children.get(2)) {
+            return node;
+        }
+        return copy(node, left, right);
+    }
+
+    // The node with one child swapped, or the node itself if nothing changed
+    private static ParseTreeNode replace(ParseTreeNode node, int index, ParseTreeNode child) {
+        if (node.getChildren().get(index) == child) {
+            return node;
+        }
+        ParseTreeNode copy = new ParseTreeNode(kindOf(node));
+        for (int i = 0; i < node.getChildren().size(); i++) {
+            copy.addChild(i == index ? child : node.getChildren().get(i));
+        }
+        return copy;
+    }
+
+    // The node with its non-terminal children replaced, in order, by the given ones
+    private static ParseTreeNode copy(ParseTreeNode node, ParseTreeNode... replacements) {
+        ParseTreeNode copy = new ParseTreeNode(kindOf(node));
+        int next = 0;
+        for (ParseTreeNode child : node.getChildren()) {
+            copy.addChild(kindOf(child) != null && next < replacements.length ? replacements[next++] : child);
+        }
+        return copy;
+    }
+
+    private int target(ParseTreeNode statement) {
+        return leafToken(child(statement, NonTerminal.IDENTIFIER, "FOLD")).getId();
+    }
+
+}
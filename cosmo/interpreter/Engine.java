@@ -0,0 +1,27 @@
+package cosmo.interpreter;
+
+import java.util.Locale;
+
+/**
+ * How an accepted program is executed: compiled to bytecode for the
+ * {@link VirtualMachine}, compiled further to a JVM class by the
+ * {@link JitCompiler}, run as self-specializing nodes built by the
+ * {@link AstBuilder}, or walked node by node by the reference Interpreter.
+ * Read from the {@code cosmo.engine} system property; the default is VM.
+ */
+public enum Engine {
+    TREE, VM, JIT, AST;
+
+    public static Engine configured() {
+        return named(System.getProperty("cosmo.engine", "vm"));
+    }
+
+    // The engine with the name in any case, such as "jit"
+    public static Engine named(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("ENGINE ERROR: Unknown engine " + value + ". Expected tree, vm, jit or ast.");
+        }
+    }
+}
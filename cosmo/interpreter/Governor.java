@@ -0,0 +1,118 @@
+package cosmo.interpreter;
+
+import cosmo.interpreter.ResourceLimitException.Resource;
+
+/**
+ * Enforces the {@link Limits} of one run. Every engine reports loop
+ * iterations, scopes and declarations to it. It throws a
+ * {@link ResourceLimitException} as soon as a limit is passed.
+ * <p>
+ * The loop, fuel and scope checks are counter comparisons. The clock and
+ * the cancellation flag are only polled every few hundred loop iterations
+ * and when a scope is entered, so the checks stay off the hot path. Another
+ * thread can stop the run with {@link #cancel()}.
+ */
+public final class Governor {
+    private static final int POLL_MASK = 255;
+
+    private final Limits limits;
+    private final int maxIterations;
+    private final long deadline;
+    private long fuel;
+    private int depth;
+    private int variables;
+    private int ticks;
+    private volatile boolean cancelled;
+
+    public Governor(Limits limits) {
+        this.limits = limits;
+        this.maxIterations = limits.getIterations();
+        this.fuel = limits.getFuel();
+        long timeout = limits.getTimeoutMillis();
+        long now = System.nanoTime();
+        // Saturates rather than wrapping for timeouts too long to matter
+        this.deadline = timeout >= Long.MAX_VALUE / 1_000_000 ? Long.MAX_VALUE : now + timeout * 1_000_000;
+    }
+
+    public Limits getLimits() {
+        return limits;
+    }
+
+    // Stops the run at its next poll; safe to call from any thread
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // Counts one iteration of a loop; count is the iteration's number in the loop's current run
+    public void iterate(int count) {
+        if (count > maxIterations) {
+            throw new ResourceLimitException(Resource.ITERATIONS, maxIterations, "Maximum loop iterations exceeded");
+        }
+        if (--fuel < 0) {
+            throw fuelUsedUp();
+        }
+        if ((++ticks & POLL_MASK) == 0) {
+            poll();
+        }
+    }
+
+    /**
+     * Hands compiled code a share of the fuel to count down itself, so it
+     * only calls back every few hundred iterations. It polls like
+     * {@link #iterate(int)} and throws once the fuel is used up.
+     */
+    public int grant() {
+        poll();
+        if (fuel <= 0) {
+            throw fuelUsedUp();
+        }
+        int granted = (int) Math.min(fuel, POLL_MASK + 1);
+        fuel -= granted;
+        return granted;
+    }
+
+    public void enterScope() {
+        if (++depth > limits.getDepth()) {
+            throw new ResourceLimitException(Resource.DEPTH, limits.getDepth(),
+                    "RESOURCE ERROR: More than " + limits.getDepth() + " nested scopes.");
+        }
+        poll();
+    }
+
+    // Open scopes, counting the program's own
+    public int getDepth() {
+        return depth;
+    }
+
+    // Leaves the innermost scope, which had declared the given number of variables
+    public void exitScope(int declared) {
+        depth--;
+        variables -= declared;
+    }
+
+    public void declare() {
+        if (++variables > limits.getVariables()) {
+            throw new ResourceLimitException(Resource.VARIABLES, limits.getVariables(),
+                    "RESOURCE ERROR: More than " + limits.getVariables() + " variables declared.");
+        }
+    }
+
+    private ResourceLimitException fuelUsedUp() {
+        return new ResourceLimitException(Resource.FUEL, limits.getFuel(),
+                "RESOURCE ERROR: Fuel of " + limits.getFuel() + " loop iterations used up.");
+    }
+
+    private void poll() {
+        if (cancelled) {
+            throw new ResourceLimitException(Resource.CANCELLED, 0, "RESOURCE ERROR: Run cancelled.");
+        }
+        if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0) {
+            throw new ResourceLimitException(Resource.TIME, limits.getTimeoutMillis(),
+                    "RESOURCE ERROR: Time limit of " + limits.getTimeoutMillis() + " ms exceeded.");
+        }
+    }
+}
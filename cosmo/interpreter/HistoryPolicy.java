@@ -0,0 +1,67 @@
+package cosmo.interpreter;
+
+/**
+ * Which scopes a {@link ScopeRecorder} keeps as a run leaves them:
+ * <ul>
+ * <li>off: none. Leaving a scope costs a counter increment.</li>
+ * <li>final: only the program's own scope, which is left last and holds
+ * the final value of every top-level variable. The default.</li>
+ * <li>every N: every Nth scope left, and the program's own.</li>
+ * <li>full: every scope left, as the value table always used to list.</li>
+ * </ul>
+ * {@link #configured()} reads the policy from the {@code cosmo.history}
+ * system property: off, final, full, or a positive number N for every Nth.
+ */
+public final class HistoryPolicy {
+    public static final HistoryPolicy OFF = new HistoryPolicy(0, false);
+    public static final HistoryPolicy FINAL = new HistoryPolicy(0, true);
+    public static final HistoryPolicy FULL = new HistoryPolicy(1, true);
+
+    // 0 for no sampling
+    private final int every;
+    private final boolean keepsFinal;
+
+    private HistoryPolicy(int every, boolean keepsFinal) {
+        this.every = every;
+        this.keepsFinal = keepsFinal;
+    }
+
+    public static HistoryPolicy every(int exits) {
+        if (exits <= 0) {
+            throw new IllegalArgumentException("HISTORY ERROR: A sampling interval must be positive, not " + exits + ".");
+        }
+        return exits == 1 ? FULL : new HistoryPolicy(exits, true);
+    }
+
+    public static HistoryPolicy configured() {
+        String value = System.getProperty("cosmo.history", "final").trim();
+        if (value.equalsIgnoreCase("off")) {
+            return OFF;
+        }
+        if (value.equalsIgnoreCase("final")) {
+            return FINAL;
+        }
+        if (value.equalsIgnoreCase("full")) {
+            return FULL;
+        }
+        try {
+            int exits = Integer.parseInt(value);
+            if (exits > 0) {
+                return every(exits);
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalStateException("HISTORY ERROR: Unknown history policy " + value
+                + ". Expected off, final, full or a positive number.");
+    }
+
+    /**
+     * Whether the scope left as the run's exit-th, counting from 1, is
+     * kept. Depth counts the open scopes including the one being left, so
+     * the program's own scope is at depth 1.
+     */
+    public boolean keeps(int exit, int depth) {
+        return every != 0 && exit % every == 0 || keepsFinal && depth == 1;
+    }
+}
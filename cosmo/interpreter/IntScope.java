@@ -0,0 +1,92 @@
+package cosmo.interpreter;
+
+import cosmo.lexeme.IdentifierTable;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * One scope of the tree-walking Interpreter: Comet values keyed by
+ * identifier ID, held in open-addressed {@code int} arrays so reads and
+ * writes neither box nor allocate. Values only become objects when the
+ * scope is handed to the scope history.
+ */
+public final class IntScope {
+    private static final int EMPTY = IdentifierTable.NO_ID;
+
+    private int[] keys = newKeys(8);
+    private int[] values = new int[8];
+    private int size;
+
+    public boolean contains(int id) {
+        return keys[indexOf(id)] != EMPTY;
+    }
+
+    // Value of a variable the caller has checked with contains
+    public int get(int id) {
+        return values[indexOf(id)];
+    }
+
+    public void put(int id, int value) {
+        int index = indexOf(id);
+        if (keys[index] == EMPTY) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                index = indexOf(id);
+            }
+            keys[index] = id;
+            size++;
+        }
+        values[index] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Boxed copy for the scope history
+    public HashMap<Integer, Integer> toMap() {
+        HashMap<Integer, Integer> map = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                map.put(keys[i], values[i]);
+            }
+        }
+        return map;
+    }
+
+    // Slot holding id, or the empty slot where it would go
+    private int indexOf(int id) {
+        int mask = keys.length - 1;
+        int hash = id * 0x9E3779B9;
+        int index = (hash ^ hash >>> 16) & mask;
+        while (keys[index] != EMPTY && keys[index] != id) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = newKeys(oldKeys.length * 2);
+        values = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private static int[] newKeys(int capacity) {
+        int[] keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
@@ -0,0 +1,368 @@
+package cosmo.interpreter;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import static cosmo.interpreter.ClassFileBuilder.*;
+
+/**
+ * Translates {@link Bytecode} into a JVM method and loads it as a hidden
+ * class, so HotSpot compiles CosmoCode programs like any other Java code.
+ * <p>
+ * Each frame slot becomes two int locals, its value and whether it has been
+ * declared in the current run of its scope, and each loop's iteration count
+ * becomes a third. Jumps become JVM branches, so Whirl and Launch loops are
+ * ordinary JVM loops, and only output, input, the scope history and the
+ * {@link Governor} are reached through the {@link JitRuntime}. Errors are thrown with the same messages as the
+ * {@link VirtualMachine}.
+ */
+public final class JitCompiler {
+    private static final String CLASS_NAME = "cosmo/interpreter/JitCode";
+    private static final String RUNTIME = "cosmo/interpreter/JitRuntime";
+    private static final String ERROR = "java/lang/IllegalStateException";
+    private static final String ENTRY = "run";
+
+    private final Bytecode program;
+    private final ClassFileBuilder out = new ClassFileBuilder();
+    private final int[] labels;
+
+    private JitCompiler(Bytecode program) {
+        this.program = program;
+        this.labels = new int[program.length()];
+    }
+
+    /**
+     * Compiles and loads {@code program}, or returns null if it is too large
+     * for a single JVM method.
+     */
+    public static JitProgram compile(Bytecode program) {
+        JitCompiler compiler = new JitCompiler(program);
+        byte[] bytes = compiler.translate();
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            MethodHandles.Lookup code = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return new JitProgram(code.findStatic(code.lookupClass(), ENTRY,
+                    MethodType.methodType(void.class, JitRuntime.class)));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("JIT ERROR: Could not load compiled program: " + e.getMessage(), e);
+        }
+    }
+
+    private byte[] translate() {
+        int[] code = program.getCode();
+        for (int pc = 0; pc < code.length; pc += 1 + operands(code[pc])) {
+            labels[pc] = out.label();
+        }
+        // Locals start out zero so every path leaves them initialized
+        int locals = 1 + 2 * program.getSlots() + program.getLoops() + 2;
+        for (int local = 1; local < locals; local++) {
+            out.op(ICONST_0);
+            out.local(ISTORE, local);
+        }
+        out.op(ALOAD_0);
+        out.invoke(INVOKEVIRTUAL, RUNTIME, "maxIterations", "()I");
+        out.local(ISTORE, maxIterations());
+        for (int pc = 0; pc < code.length; pc += 1 + operands(code[pc])) {
+            out.mark(labels[pc]);
+            instruction(code, pc);
+            if (out.length() > MAX_CODE) {
+                return null;
+            }
+        }
+        // Room for the runtime, an exception under construction and its message above the operands
+        return out.toClass(CLASS_NAME, ENTRY, "(L" + RUNTIME + ";)V", program.getMaxStack() + 4, locals);
+    }
+
+    private void instruction(int[] code, int pc) {
+        String[] strings = program.getStrings();
+        switch (code[pc]) {
+            case Bytecode.HALT:
+                out.op(RETURN);
+                break;
+            case Bytecode.CONST:
+                out.pushInt(code[pc + 1]);
+                break;
+            case Bytecode.LOAD:
+                out.local(ILOAD, value(code[pc + 1]));
+                break;
+            case Bytecode.LOAD_EITHER: {
+                int done = out.label();
+                for (int slot : program.getChains()[code[pc + 1]]) {
+                    int next = out.label();
+                    out.local(ILOAD, declared(slot));
+                    out.branch(IFEQ, next);
+                    out.local(ILOAD, value(slot));
+                    out.branch(GOTO, done);
+                    out.mark(next);
+                }
+                fail(strings[code[pc + 2]]);
+                out.mark(done);
+                break;
+            }
+            case Bytecode.DECLARE: {
+                int slot = code[pc + 1];
+                int fresh = out.label();
+                out.local(ILOAD, declared(slot));
+                out.branch(IFEQ, fresh);
+                fail(strings[code[pc + 2]]);
+                out.mark(fresh);
+                out.op(ALOAD_0);
+                out.invoke(INVOKEVIRTUAL, RUNTIME, "declare", "()V");
+                out.local(ISTORE, value(slot));
+                out.op(ICONST_1);
+                out.local(ISTORE, declared(slot));
+                break;
+            }
+            case Bytecode.STORE:
+                out.local(ISTORE, value(code[pc + 1]));
+                break;
+            case Bytecode.STORE_EITHER: {
+                int done = out.label();
+                for (int slot : program.getChains()[code[pc + 1]]) {
+                    int next = out.label();
+                    out.local(ILOAD, declared(slot));
+                    out.branch(IFEQ, next);
+                    out.local(ISTORE, value(slot));
+                    out.branch(GOTO, done);
+                    out.mark(next);
+                }
+                fail(strings[code[pc + 2]]);
+                out.mark(done);
+                break;
+            }
+            case Bytecode.ADD:
+                out.op(IADD);
+                break;
+            case Bytecode.SUB:
+                out.op(ISUB);
+                break;
+            case Bytecode.MUL:
+                out.op(IMUL);
+                break;
+            case Bytecode.DIV: {
+                int nonZero = out.label();
+                out.op(DUP);
+                out.branch(IFNE, nonZero);
+                fail("ARITHMETIC ERROR: Division by zero.");
+                out.mark(nonZero);
+                out.op(IDIV);
+                break;
+            }
+            case Bytecode.EQ:
+                compare(IF_ICMPEQ);
+                break;
+            case Bytecode.NE:
+                compare(IF_ICMPNE);
+                break;
+            case Bytecode.LT:
+                compare(IF_ICMPLT);
+                break;
+            case Bytecode.LE:
+                compare(IF_ICMPLE);
+                break;
+            case Bytecode.GT:
+                compare(IF_ICMPGT);
+                break;
+            case Bytecode.GE:
+                compare(IF_ICMPGE);
+                break;
+            case Bytecode.JUMP:
+                out.branch(GOTO, labels[code[pc + 1]]);
+                break;
+            case Bytecode.JUMP_IF_ZERO:
+                out.branch(IFEQ, labels[code[pc + 1]]);
+                break;
+            case Bytecode.JUMP_IF_NOT_ZERO:
+                out.branch(IFNE, labels[code[pc + 1]]);
+                break;
+            case Bytecode.AND:
+            case Bytecode.OR:
+                // Jump keeping the deciding value, else drop it and evaluate the right operand
+                out.op(DUP);
+                out.branch(code[pc] == Bytecode.AND ? IFEQ : IFNE, labels[code[pc + 1]]);
+                out.op(POP);
+                break;
+            case Bytecode.SELECT: {
+                // Stack: first, second condition
+                int notFirst = out.label();
+                int first = out.label();
+                out.op(SWAP);
+                out.branch(IFEQ, notFirst);
+                out.op(POP);
+                out.branch(GOTO, first);
+                out.mark(notFirst);
+                out.branch(IFNE, labels[code[pc + 1]]);
+                out.branch(GOTO, labels[code[pc + 2]]);
+                out.mark(first);
+                break;
+            }
+            case Bytecode.PRINT_TEXT:
+                out.op(ALOAD_0);
+                out.pushString(strings[code[pc + 1]]);
+                out.invoke(INVOKEVIRTUAL, RUNTIME, "print", "(Ljava/lang/String;)V");
+                break;
+            case Bytecode.PRINT_VALUE:
+                out.op(ALOAD_0);
+                out.op(SWAP);
+                out.invoke(INVOKEVIRTUAL, RUNTIME, "print", "(I)V");
+                break;
+            case Bytecode.RECEIVE: {
+                int done = out.label();
+                for (int slot : program.getChains()[code[pc + 1]]) {
+                    int next = out.label();
+                    out.local(ILOAD, declared(slot));
+                    out.branch(IFEQ, next);
+                    out.op(ALOAD_0);
+                    out.pushString(strings[code[pc + 2]]);
+                    out.invoke(INVOKEVIRTUAL, RUNTIME, "receive", "(Ljava/lang/String;)I");
+                    out.local(ISTORE, value(slot));
+                    out.branch(GOTO, done);
+                    out.mark(next);
+                }
+                fail(strings[code[pc + 3]]);
+                out.mark(done);
+                break;
+            }
+            case Bytecode.ENTER_SCOPE: {
+                out.op(ALOAD_0);
+                out.invoke(INVOKEVIRTUAL, RUNTIME, "enterScope", "()V");
+                int base = program.getScopeBases()[code[pc + 1]];
+                for (int i = 0; i < program.getScopeIds()[code[pc + 1]].length; i++) {
+                    out.op(ICONST_0);
+                    out.local(ISTORE, declared(base + i));
+                }
+                break;
+            }
+            case Bytecode.EXIT_SCOPE: {
+                int base = program.getScopeBases()[code[pc + 1]];
+                int[] ids = program.getScopeIds()[code[pc + 1]];
+                for (int i = 0; i < ids.length; i++) {
+                    int skip = out.label();
+                    out.local(ILOAD, declared(base + i));
+                    out.branch(IFEQ, skip);
+                    out.op(ALOAD_0);
+                    out.pushInt(ids[i]);
+                    out.local(ILOAD, value(base + i));
+                    out.invoke(INVOKEVIRTUAL, RUNTIME, "record", "(II)V");
+                    out.mark(skip);
+                }
+                out.op(ALOAD_0);
+                out.invoke(INVOKEVIRTUAL, RUNTIME, "exitScope", "()V");
+                break;
+            }
+            case Bytecode.LOOP_START:
+                out.op(ICONST_0);
+                out.local(ISTORE, counter(code[pc + 1]));
+                break;
+            case Bytecode.LOOP_CHECK: {
+                // The runtime is only called past the loop limit, which throws, and when the fuel granted runs out
+                int within = out.label();
+                int fueled = out.label();
+                out.increment(counter(code[pc + 1]), 1);
+                out.local(ILOAD, counter(code[pc + 1]));
+                out.local(ILOAD, maxIterations());
+                out.branch(IF_ICMPLE, within);
+                out.op(ALOAD_0);
+                out.local(ILOAD, counter(code[pc + 1]));
+                out.invoke(INVOKEVIRTUAL, RUNTIME, "iterate", "(I)V");
+                out.mark(within);
+                out.increment(fuel(), -1);
+                out.local(ILOAD, fuel());
+                out.branch(IFGE, fueled);
+                out.op(ALOAD_0);
+                out.invoke(INVOKEVIRTUAL, RUNTIME, "grant", "()I");
+                out.op(ICONST_1);
+                out.op(ISUB);
+                out.local(ISTORE, fuel());
+                out.mark(fueled);
+                break;
+            }
+            case Bytecode.INCREMENT: {
+                int amount = code[pc + 2];
+                if (amount >= Byte.MIN_VALUE && amount <= Byte.MAX_VALUE) {
+                    out.increment(value(code[pc + 1]), amount);
+                } else {
+                    out.local(ILOAD, value(code[pc + 1]));
+                    out.pushInt(amount);
+                    out.op(IADD);
+                    out.local(ISTORE, value(code[pc + 1]));
+                }
+                break;
+            }
+            default:
+                throw new IllegalStateException("JIT ERROR: Unknown opcode " + code[pc] + " at " + pc + ".");
+        }
+    }
+
+    // Replaces the two operands with 1 if the branch would be taken, else 0
+    private void compare(int branch) {
+        int taken = out.label();
+        int done = out.label();
+        out.branch(branch, taken);
+        out.op(ICONST_0);
+        out.branch(GOTO, done);
+        out.mark(taken);
+        out.op(ICONST_1);
+        out.mark(done);
+    }
+
+    private void fail(String message) {
+        out.typeOp(NEW, ERROR);
+        out.op(DUP);
+        out.pushString(message);
+        out.invoke(INVOKESPECIAL, ERROR, "<init>", "(Ljava/lang/String;)V");
+        out.op(ATHROW);
+    }
+
+    private int value(int slot) {
+        return 1 + slot;
+    }
+
+    private int declared(int slot) {
+        return 1 + program.getSlots() + slot;
+    }
+
+    private int counter(int loop) {
+        return 1 + 2 * program.getSlots() + loop;
+    }
+
+    private int maxIterations() {
+        return 1 + 2 * program.getSlots() + program.getLoops();
+    }
+
+    // Loop iterations left of the fuel last granted by the governor
+    private int fuel() {
+        return maxIterations() + 1;
+    }
+
+    private static int operands(int opcode) {
+        switch (opcode) {
+            case Bytecode.CONST:
+            case Bytecode.LOAD:
+            case Bytecode.STORE:
+            case Bytecode.JUMP:
+            case Bytecode.JUMP_IF_ZERO:
+            case Bytecode.JUMP_IF_NOT_ZERO:
+            case Bytecode.AND:
+            case Bytecode.OR:
+            case Bytecode.PRINT_TEXT:
+            case Bytecode.ENTER_SCOPE:
+            case Bytecode.EXIT_SCOPE:
+            case Bytecode.LOOP_START:
+            case Bytecode.LOOP_CHECK:
+                return 1;
+            case Bytecode.LOAD_EITHER:
+            case Bytecode.DECLARE:
+            case Bytecode.STORE_EITHER:
+            case Bytecode.SELECT:
+            case Bytecode.INCREMENT:
+                return 2;
+            case Bytecode.RECEIVE:
+                return 3;
+            default:
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package cosmo.interpreter;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * A CosmoCode program compiled by the {@link JitCompiler} into a hidden JVM
+ * class. It can be run any number of times; each run has its own variables.
+ */
+public final class JitProgram {
+    private final MethodHandle entry;
+
+    JitProgram(MethodHandle entry) {
+        this.entry = entry;
+    }
+
+    public void run(RunContext context) {
+        try {
+            entry.invokeExact(new JitRuntime(context));
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("JIT ERROR: " + e, e); // The generated method declares no exceptions
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package cosmo.interpreter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * What JIT-compiled code calls for output, input, the scope recorder and the
+ * run's {@link Governor}. Everything else runs in the generated method
+ * itself.
+ */
+final class JitRuntime {
+    private final ProgramIO io;
+    private final ScopeRecorder recorder;
+    private final Governor governor;
+    // Declared variables of the scope being left, boxed only if the recorder keeps it
+    private int[] ids = new int[8];
+    private int[] values = new int[8];
+    private int declared;
+
+    JitRuntime(RunContext context) {
+        this.io = context.getIO();
+        this.recorder = context.getRecorder();
+        this.governor = context.getGovernor();
+    }
+
+    void print(String text) {
+        io.transmit(text);
+    }
+
+    void print(int value) {
+        io.transmit(value);
+    }
+
+    int receive(String prompt) {
+        return io.receive(prompt);
+    }
+
+    void iterate(int count) {
+        governor.iterate(count);
+    }
+
+    int maxIterations() {
+        return governor.getLimits().getIterations();
+    }
+
+    int grant() {
+        return governor.grant();
+    }
+
+    void enterScope() {
+        governor.enterScope();
+    }
+
+    void declare() {
+        governor.declare();
+    }
+
+    // A declared variable of the scope being left
+    void record(int id, int value) {
+        if (declared == ids.length) {
+            ids = Arrays.copyOf(ids, declared * 2);
+            values = Arrays.copyOf(values, declared * 2);
+        }
+        ids[declared] = id;
+        values[declared] = value;
+        declared++;
+    }
+
+    void exitScope() {
+        if (recorder.wants(governor.getDepth())) {
+            HashMap<Integer, Integer> scope = new HashMap<>();
+            for (int i = 0; i < declared; i++) {
+                scope.put(ids[i], values[i]);
+            }
+            recorder.record(scope);
+        }
+        governor.exitScope(declared);
+        declared = 0;
+    }
+}
@@ -0,0 +1,131 @@
+package cosmo.interpreter;
+
+/**
+ * What one run of a CosmoCode program may use, enforced by a
+ * {@link Governor}:
+ * <ul>
+ * <li>iterations: how many times a Whirl or Launch Whirl loop may iterate
+ * each time it runs, 200 by default.</li>
+ * <li>fuel: loop iterations in the whole run. Code outside loops runs at
+ * most once per statement, so this bounds the work of the run.</li>
+ * <li>timeout: wall-clock milliseconds from when the run's governor is
+ * created.</li>
+ * <li>depth: scopes open at the same time, counting the program's own.</li>
+ * <li>variables: variables declared in the open scopes.</li>
+ * </ul>
+ * Only iterations is limited by default. {@link #configured()} reads the
+ * limits from the {@code cosmo.iterations}, {@code cosmo.fuel},
+ * {@code cosmo.timeout}, {@code cosmo.depth} and {@code cosmo.variables}
+ * system properties, each a positive number or {@code unlimited}.
+ */
+public final class Limits {
+    public static final int DEFAULT_ITERATIONS = 200;
+    public static final Limits DEFAULT = new Limits(DEFAULT_ITERATIONS, Long.MAX_VALUE, Long.MAX_VALUE,
+            Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    private final int iterations;
+    private final long fuel;
+    private final long timeoutMillis;
+    private final int depth;
+    private final int variables;
+
+    private Limits(int iterations, long fuel, long timeoutMillis, int depth, int variables) {
+        this.iterations = iterations;
+        this.fuel = fuel;
+        this.timeoutMillis = timeoutMillis;
+        this.depth = depth;
+        this.variables = variables;
+    }
+
+    public static Limits configured() {
+        return DEFAULT
+                .withIterations((int) property("iterations", DEFAULT_ITERATIONS, Integer.MAX_VALUE))
+                .withFuel(property("fuel", Long.MAX_VALUE, Long.MAX_VALUE))
+                .withTimeout(property("timeout", Long.MAX_VALUE, Long.MAX_VALUE))
+                .withDepth((int) property("depth", Integer.MAX_VALUE, Integer.MAX_VALUE))
+                .withVariables((int) property("variables", Integer.MAX_VALUE, Integer.MAX_VALUE));
+    }
+
+    // Integer.MAX_VALUE for unlimited
+    public Limits withIterations(int iterations) {
+        return new Limits(positive(iterations), fuel, timeoutMillis, depth, variables);
+    }
+
+    // Long.MAX_VALUE for unlimited
+    public Limits withFuel(long fuel) {
+        return new Limits(iterations, positive(fuel), timeoutMillis, depth, variables);
+    }
+
+    // Long.MAX_VALUE for none
+    public Limits withTimeout(long millis) {
+        return new Limits(iterations, fuel, positive(millis), depth, variables);
+    }
+
+    // Integer.MAX_VALUE for unlimited
+    public Limits withDepth(int depth) {
+        return new Limits(iterations, fuel, timeoutMillis, positive(depth), variables);
+    }
+
+    // Integer.MAX_VALUE for unlimited
+    public Limits withVariables(int variables) {
+        return new Limits(iterations, fuel, timeoutMillis, depth, positive(variables));
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public long getFuel() {
+        return fuel;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getVariables() {
+        return variables;
+    }
+
+    private static long property(String name, long fallback, long unlimited) {
+        String value = System.getProperty("cosmo." + name);
+        if (value == null) {
+            return fallback;
+        }
+        value = value.trim();
+        if (value.equalsIgnoreCase("unlimited")) {
+            return unlimited;
+        }
+        try {
+            long limit = Long.parseLong(value);
+            if (limit > 0 && limit <= unlimited) {
+                return limit;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalStateException("LIMIT ERROR: Invalid " + name + " limit " + value
+                + ". Expected a positive number or unlimited.");
+    }
+
+    private static long positive(long limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("LIMIT ERROR: A limit must be positive, not " + limit + ".");
+        }
+        return limit;
+    }
+
+    private static int positive(int limit) {
+        return (int) positive((long) limit);
+    }
+
+    @Override
+    public String toString() {
+        return "Limits[iterations=" + iterations + ", fuel=" + fuel + ", timeout=" + timeoutMillis + "ms, depth="
+                + depth + ", variables=" + variables + "]";
+    }
+}
@@ -0,0 +1,363 @@
+package cosmo.interpreter;
+
+import cosmo.ParseTreeNode;
+import cosmo.grammar.NonTerminal;
+import cosmo.lexeme.TokenKind;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static cosmo.interpreter.ParseTrees.isConstant;
+import static cosmo.interpreter.ParseTrees.kindOf;
+import static cosmo.interpreter.ParseTrees.leafToken;
+import static cosmo.interpreter.ParseTrees.literal;
+
+/**
+ * Plans the work a Whirl or Launch Whirl loop can do once before its first
+ * iteration instead of on every one. A loop body only holds simple
+ * statements, so it runs top to bottom on every iteration.
+ * <ul>
+ * <li>A variable is fixed in the loop if the body never declares, assigns
+ * or receives it. An arithExp, relationalExp or logicalExp over fixed
+ * variables and literals is invariant. The largest such expressions in the
+ * body and in the condition the loop re-evaluates are computed once into
+ * hidden slots, and the loop reads those instead.</li>
+ * <li>An induction variable changes only through a single
+ * {@code v = v + c} or {@code v = v - c} in the body. A product of it and
+ * an invariant factor is kept in a hidden slot, set before the loop and
+ * advanced by {@code c} times the factor right after each step, so the
+ * multiplication becomes an addition.</li>
+ * </ul>
+ * Only expressions that cannot fail are moved: a division must be by a
+ * non-zero literal, and every variable must be declared when the loop
+ * starts. A Reception writes its variable, so nothing that reads the
+ * variable is hoisted. Hidden slots belong to no scope, so they never reach
+ * the scope history.
+ * <p>
+ * A plan is made right after the loop's scope is entered in the
+ * {@link ScopeResolver} and before any statement of the body is resolved.
+ */
+final class LoopOptimizer {
+    static final int NONE = -1;
+
+    // An invariant arithExp, relationalExp or logicalExp, computed into temp before the loop
+    static final class Hoisted {
+        final ParseTreeNode node;
+        final int temp;
+
+        Hoisted(ParseTreeNode node, int temp) {
+            this.node = node;
+            this.temp = temp;
+        }
+    }
+
+    // temp holds product, which is variable times factor; each step of the variable advances it
+    static final class Reduction {
+        final ParseTreeNode product;
+        final ParseTreeNode factor;
+        final int variable;
+        final int step;
+        final int temp;
+        // Holds step times factor, or NONE if the factor is a literal and the amount is known
+        final int stepTemp;
+
+        Reduction(ParseTreeNode product, ParseTreeNode factor, int variable, int step, int temp, int stepTemp) {
+            this.product = product;
+            this.factor = factor;
+            this.variable = variable;
+            this.step = step;
+            this.temp = temp;
+            this.stepTemp = stepTemp;
+        }
+
+        // What temp advances by per step when the factor is a literal
+        int amount() {
+            return step * literal(factor);
+        }
+    }
+
+    private final ScopeResolver scopes;
+    private final Set<Integer> changed = new HashSet<>();
+    private final Set<Integer> declared = new HashSet<>();
+    private final Set<Integer> received = new HashSet<>();
+    private final Map<Integer, Integer> assignments = new HashMap<>();
+    private final Map<Integer, Boolean> fixed = new HashMap<>();
+    private final Map<Integer, Integer> steps = new HashMap<>();
+    private final Map<String, Integer> temps = new HashMap<>();
+    private final List<Hoisted> hoisted = new ArrayList<>();
+    private final List<Reduction> reductions = new ArrayList<>();
+    private int tempCount;
+
+    private LoopOptimizer(ScopeResolver scopes) {
+        this.scopes = scopes;
+    }
+
+    /**
+     * Plans the loop whose body is {@code stmt} and whose condition, as
+     * re-evaluated after each iteration, is {@code conditionalExp}.
+     */
+    static LoopOptimizer plan(ParseTreeNode stmt, ParseTreeNode conditionalExp, ScopeResolver scopes) {
+        LoopOptimizer plan = new LoopOptimizer(scopes);
+        List<ParseTreeNode> statements = new ArrayList<>();
+        for (ParseTreeNode child : stmt.getChildren()) {
+            if (kindOf(child) == NonTerminal.EXPR) {
+                statements.add(child.getChildren().get(0));
+            }
+        }
+        for (ParseTreeNode statement : statements) {
+            plan.note(statement);
+        }
+        for (ParseTreeNode statement : statements) {
+            plan.induction(statement);
+        }
+        for (ParseTreeNode statement : statements) {
+            switch (kindOf(statement)) {
+                case DEC_STMT:
+                    plan.arithmetic(statement.getChildren().get(3));
+                    break;
+                case ASSIGN_STMT:
+                    plan.arithmetic(statement.getChildren().get(2));
+                    break;
+                default:
+                    break;
+            }
+        }
+        plan.predicate(conditionalExp.getChildren().get(1));
+        return plan;
+    }
+
+    /**
+     * The amount {@code assignStmt} adds to its own target if it has the
+     * form {@code v = v + c}, {@code v = c + v} or {@code v = v - c}, or
+     * null otherwise.
+     */
+    static Integer increment(ParseTreeNode assignStmt) {
+        int target = target(assignStmt);
+        ParseTreeNode value = assignStmt.getChildren().get(2);
+        if (kindOf(value) != NonTerminal.ARITH_EXP) {
+            return null;
+        }
+        List<ParseTreeNode> children = value.getChildren();
+        TokenKind operator = children.get(1).getToken().getKind();
+        if (isVariable(children.get(0), target) && isConstant(children.get(2))) {
+            if (operator == TokenKind.PLUS) {
+                return literal(children.get(2));
+            } else if (operator == TokenKind.MINUS) {
+                return -literal(children.get(2));
+            }
+        } else if (operator == TokenKind.PLUS && isConstant(children.get(0)) && isVariable(children.get(2), target)) {
+            return literal(children.get(0));
+        }
+        return null;
+    }
+
+    List<Hoisted> hoisted() {
+        return hoisted;
+    }
+
+    List<Reduction> reductions() {
+        return reductions;
+    }
+
+    // Hidden slots the plan uses, numbered from zero
+    int temps() {
+        return tempCount;
+    }
+
+    // Hidden slot that holds the value of an arithExp, relationalExp or logicalExp in the loop, or NONE
+    int temp(ParseTreeNode node) {
+        if (temps.isEmpty() || !isExpression(node)) {
+            return NONE;
+        }
+        Integer temp = temps.get(key(node));
+        return temp != null ? temp : NONE;
+    }
+
+    // Reductions to advance after the step of an induction variable
+    List<Reduction> updates(int variable) {
+        if (!steps.containsKey(variable)) {
+            return Collections.emptyList();
+        }
+        List<Reduction> updates = new ArrayList<>();
+        for (Reduction reduction : reductions) {
+            if (reduction.variable == variable) {
+                updates.add(reduction);
+            }
+        }
+        return updates;
+    }
+
+    private void note(ParseTreeNode statement) {
+        switch (kindOf(statement)) {
+            case DEC_STMT:
+                changed.add(target(statement));
+                declared.add(target(statement));
+                break;
+            case ASSIGN_STMT:
+                changed.add(target(statement));
+                assignments.merge(target(statement), 1, Integer::sum);
+                break;
+            case RECEPTION_STMT:
+                changed.add(target(statement));
+                received.add(target(statement));
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Records the step of a variable whose only change is this assignment
+    private void induction(ParseTreeNode statement) {
+        if (kindOf(statement) != NonTerminal.ASSIGN_STMT) {
+            return;
+        }
+        int id = target(statement);
+        Integer step = increment(statement);
+        if (step != null && assignments.get(id) == 1 && !received.contains(id) && !declared.contains(id)
+                && scopes.resolve(id).definite) {
+            steps.put(id, step);
+        }
+    }
+
+    private void arithmetic(ParseTreeNode node) {
+        if (kindOf(node) != NonTerminal.ARITH_EXP) {
+            return;
+        }
+        if (invariant(node)) {
+            hoist(node);
+        } else if (!reduce(node)) {
+            arithmetic(node.getChildren().get(0));
+            arithmetic(node.getChildren().get(2));
+        }
+    }
+
+    private void predicate(ParseTreeNode node) {
+        List<ParseTreeNode> children = node.getChildren();
+        if (invariant(node)) {
+            hoist(node);
+        } else if (kindOf(node) == NonTerminal.LOGICAL_EXP) {
+            predicate(children.get(0));
+            predicate(children.get(2));
+        } else {
+            arithmetic(children.get(0));
+            arithmetic(children.get(2));
+        }
+    }
+
+    private void hoist(ParseTreeNode node) {
+        String key = key(node);
+        if (!temps.containsKey(key)) {
+            temps.put(key, tempCount);
+            hoisted.add(new Hoisted(node, tempCount++));
+        }
+    }
+
+    // Keeps variable times factor in a hidden slot if node is one; false if it is not
+    private boolean reduce(ParseTreeNode node) {
+        List<ParseTreeNode> children = node.getChildren();
+        if (children.get(1).getToken().getKind() != TokenKind.MULT) {
+            return false;
+        }
+        ParseTreeNode variable;
+        ParseTreeNode factor;
+        if (isInduction(children.get(0)) && invariant(children.get(2))) {
+            variable = children.get(0);
+            factor = children.get(2);
+        } else if (isInduction(children.get(2)) && invariant(children.get(0))) {
+            variable = children.get(2);
+            factor = children.get(0);
+        } else {
+            return false;
+        }
+        String key = key(node);
+        if (!temps.containsKey(key)) {
+            int id = leafToken(variable).getId();
+            int temp = tempCount++;
+            int stepTemp = isConstant(factor) ? NONE : tempCount++;
+            temps.put(key, temp);
+            reductions.add(new Reduction(node, factor, id, steps.get(id), temp, stepTemp));
+        }
+        return true;
+    }
+
+    private boolean isInduction(ParseTreeNode node) {
+        return kindOf(node) == NonTerminal.IDENTIFIER && steps.containsKey(leafToken(node).getId());
+    }
+
+    // Whether node has the same value throughout the loop and cannot fail
+    private boolean invariant(ParseTreeNode node) {
+        switch (kindOf(node)) {
+            case IDENTIFIER:
+                return isFixed(leafToken(node).getId());
+            case COMET_LITERAL:
+                return isConstant(node);
+            case ARITH_EXP: {
+                List<ParseTreeNode> children = node.getChildren();
+                if (children.get(1).getToken().getKind() == TokenKind.DIV
+                        && !(isConstant(children.get(2)) && literal(children.get(2)) != 0)) {
+                    return false;
+                }
+                return invariant(children.get(0)) && invariant(children.get(2));
+            }
+            case RELATIONAL_EXP:
+            case LOGICAL_EXP:
+                return invariant(node.getChildren().get(0)) && invariant(node.getChildren().get(2));
+            default:
+                return false;
+        }
+    }
+
+    private boolean isFixed(int id) {
+        return fixed.computeIfAbsent(id, key -> !changed.contains(key) && scopes.resolve(key).definite);
+    }
+
+    // Identifies an expression by its text, so equal expressions share a hidden slot
+    private static String key(ParseTreeNode node) {
+        StringBuilder key = new StringBuilder();
+        key(node, key);
+        return key.toString();
+    }
+
+    private static void key(ParseTreeNode node, StringBuilder key) {
+        switch (kindOf(node)) {
+            case IDENTIFIER:
+                key.append('v').append(leafToken(node).getId());
+                break;
+            case COMET_LITERAL:
+                key.append('#').append(leafToken(node).getLexeme());
+                break;
+            default: {
+                List<ParseTreeNode> children = node.getChildren();
+                key.append('(');
+                key(children.get(0), key);
+                key.append(' ').append(children.get(1).getToken().getKind()).append(' ');
+                key(children.get(2), key);
+                key.append(')');
+                break;
+            }
+        }
+    }
+
+    private static boolean isExpression(ParseTreeNode node) {
+        NonTerminal kind = kindOf(node);
+        return kind == NonTerminal.ARITH_EXP || kind == NonTerminal.RELATIONAL_EXP || kind == NonTerminal.LOGICAL_EXP;
+    }
+
+    private static boolean isVariable(ParseTreeNode node, int id) {
+        return kindOf(node) == NonTerminal.IDENTIFIER && leafToken(node).getId() == id;
+    }
+
+    private static int target(ParseTreeNode statement) {
+        for (ParseTreeNode child : statement.getChildren()) {
+            if (kindOf(child) == NonTerminal.IDENTIFIER) {
+                return leafToken(child).getId();
+            }
+        }
+        throw new IllegalStateException("LOOP ERROR: " + statement.getSymbol() + " has no identifier.");
+    }
+
+}
@@ -0,0 +1,54 @@
+package cosmo.interpreter;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+
+/**
+ * {@link ProgramIO} held in memory. Reception takes its lines from a
+ * queue, which may be a concurrent one fed while the program runs.
+ * Transmission output and Reception prompts are captured as text, each
+ * transmitted line ending in {@code \n}.
+ */
+public final class MemoryIO implements ProgramIO {
+    private final Queue<String> input;
+    private final StringBuilder output = new StringBuilder();
+
+    public MemoryIO(String... lines) {
+        this(new ArrayDeque<>(Arrays.asList(lines)));
+    }
+
+    public MemoryIO(Queue<String> input) {
+        this.input = input;
+    }
+
+    @Override
+    public void transmit(String text) {
+        output.append(text).append('\n');
+    }
+
+    @Override
+    public void transmit(int value) {
+        output.append(value).append('\n');
+    }
+
+    @Override
+    public int receive(String prompt) {
+        output.append(prompt);
+        String line = input.poll();
+        if (line == null) {
+            throw new IllegalStateException("RECEPTION ERROR: No input left to receive.");
+        }
+        return VirtualMachine.parseComet(line);
+    }
+
+    @Override
+    public void flush() {
+        // Nothing is held back
+    }
+
+    // Everything written so far
+    public String getOutput() {
+        return output.toString();
+    }
+}
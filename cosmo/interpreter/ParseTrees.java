@@ -0,0 +1,56 @@
+package cosmo.interpreter;
+
+import cosmo.ParseTreeNode;
+import cosmo.grammar.NonTerminal;
+import cosmo.lexeme.Token;
+
+/**
+ * Reading parse tree nodes, shared by the passes that rewrite or compile
+ * an accepted tree.
+ */
+final class ParseTrees {
+    private ParseTrees() {
+    }
+
+    // The nonterminal of an inner node, or null for a token leaf
+    static NonTerminal kindOf(ParseTreeNode node) {
+        return node.getKind() instanceof NonTerminal ? (NonTerminal) node.getKind() : null;
+    }
+
+    // The first token under the node, which is the node itself for a leaf
+    static Token leafToken(ParseTreeNode node) {
+        while (node.getToken() == null) {
+            node = node.getChildren().get(0);
+        }
+        return node.getToken();
+    }
+
+    // The first child of the kind; a missing one is reported as a "<pass> ERROR"
+    static ParseTreeNode child(ParseTreeNode node, NonTerminal kind, String pass) {
+        for (ParseTreeNode child : node.getChildren()) {
+            if (kindOf(child) == kind) {
+                return child;
+            }
+        }
+        throw new IllegalStateException(pass + " ERROR: " + node.getSymbol() + " has no " + kind.label() + ".");
+    }
+
+    // A comet_literal; ConstantFolder has already checked that every one fits in a Comet
+    static boolean isConstant(ParseTreeNode node) {
+        return kindOf(node) == NonTerminal.COMET_LITERAL;
+    }
+
+    // Value of a comet_literal in a folded tree
+    static int literal(ParseTreeNode node) {
+        return Integer.parseInt(leafToken(node).getLexeme());
+    }
+
+    // Value of a comet_literal token, which fails with an "ARITHMETIC ERROR" if it does not fit in a Comet
+    static int comet(Token token) {
+        try {
+            return Integer.parseInt(token.getLexeme());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("ARITHMETIC ERROR: " + token.getLexeme() + " is out of range for a Comet.");
+        }
+    }
+}
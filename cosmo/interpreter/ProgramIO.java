@@ -0,0 +1,42 @@
+package cosmo.interpreter;
+
+import java.nio.file.Paths;
+
+/**
+ * Where a running program's Transmission output goes and where its
+ * Reception input comes from. Every engine uses one for the whole run.
+ * Output may be held back until {@link #flush()}, so whoever runs the
+ * program closes or flushes it afterwards.
+ * <ul>
+ * <li>{@link StreamIO}: batched output and allocation-free input parsing
+ * over character streams, for the console or an input file.</li>
+ * <li>{@link MemoryIO}: input from a queue and output captured in memory,
+ * for running programs without a console.</li>
+ * </ul>
+ */
+public interface ProgramIO extends AutoCloseable {
+    // Writes the text and a line break
+    void transmit(String text);
+
+    // Writes the value and a line break
+    void transmit(int value);
+
+    // Writes the prompt and reads one line of input, which must be a whole Comet
+    int receive(String prompt);
+
+    void flush();
+
+    @Override
+    default void close() {
+        flush();
+    }
+
+    /**
+     * The console, or the console with input read from the file named by
+     * the {@code cosmo.input} system property.
+     */
+    static ProgramIO configured() {
+        String file = System.getProperty("cosmo.input");
+        return file == null ? StreamIO.console() : StreamIO.script(Paths.get(file.trim()));
+    }
+}
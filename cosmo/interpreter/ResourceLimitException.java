@@ -0,0 +1,32 @@
+package cosmo.interpreter;
+
+/**
+ * Thrown when a run goes past one of its {@link Limits} or is cancelled.
+ * It is an IllegalStateException like every other run-time error, so it
+ * ends the run in the same way, and it also says which resource ran out.
+ */
+public final class ResourceLimitException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    public enum Resource {
+        ITERATIONS, FUEL, TIME, DEPTH, VARIABLES, CANCELLED
+    }
+
+    private final Resource resource;
+    private final long limit;
+
+    ResourceLimitException(Resource resource, long limit, String message) {
+        super(message);
+        this.resource = resource;
+        this.limit = limit;
+    }
+
+    public Resource getResource() {
+        return resource;
+    }
+
+    // The limit that was exceeded, or 0 for a cancelled run
+    public long getLimit() {
+        return limit;
+    }
+}
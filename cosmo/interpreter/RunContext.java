@@ -0,0 +1,36 @@
+package cosmo.interpreter;
+
+/**
+ * Everything one run of a program owns: its {@link ProgramIO}, its
+ * {@link Governor} and the {@link ScopeRecorder} the scopes it leaves go
+ * to. Engines keep no other state between runs, so any number of runs may
+ * proceed at once as long as each has its own context.
+ */
+public final class RunContext {
+    private final ProgramIO io;
+    private final Governor governor;
+    private final ScopeRecorder recorder;
+
+    // A new governor for the limits, whose timeout starts now, and a history of the final state only
+    public RunContext(ProgramIO io, Limits limits) {
+        this(io, new Governor(limits), new ScopeHistory(HistoryPolicy.FINAL));
+    }
+
+    public RunContext(ProgramIO io, Governor governor, ScopeRecorder recorder) {
+        this.io = io;
+        this.governor = governor;
+        this.recorder = recorder;
+    }
+
+    public ProgramIO getIO() {
+        return io;
+    }
+
+    public Governor getGovernor() {
+        return governor;
+    }
+
+    public ScopeRecorder getRecorder() {
+        return recorder;
+    }
+}
@@ -0,0 +1,36 @@
+package cosmo.interpreter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ScopeRecorder} that keeps the recorded scopes in memory, in the
+ * order they were left.
+ */
+public final class ScopeHistory extends ScopeRecorder {
+    private final List<Map<Integer, Integer>> scopes = new ArrayList<>();
+    private Map<Integer, Integer> finalScope;
+
+    public ScopeHistory(HistoryPolicy policy) {
+        super(policy);
+    }
+
+    @Override
+    public void record(Map<Integer, Integer> variables) {
+        scopes.add(variables);
+        if (getDepth() == 1) {
+            finalScope = variables;
+        }
+    }
+
+    public List<Map<Integer, Integer>> getScopes() {
+        return Collections.unmodifiableList(scopes);
+    }
+
+    // The program's own scope, left last, or null if the run did not finish or the policy keeps no final state
+    public Map<Integer, Integer> getFinalScope() {
+        return finalScope;
+    }
+}
@@ -0,0 +1,58 @@
+package cosmo.interpreter;
+
+import java.util.Map;
+
+/**
+ * Receives the variables of the scopes a run leaves, as far as its
+ * {@link HistoryPolicy} keeps them. Every engine asks {@link #wants(int)}
+ * as it leaves a scope and only copies the scope's variables when the
+ * answer is yes, so a scope that is not kept costs nothing beyond the
+ * question.
+ * <ul>
+ * <li>{@link ScopeHistory}: the kept scopes in memory.</li>
+ * <li>{@link ValueTableWriter}: the kept scopes written out as the value
+ * table while the run goes on.</li>
+ * </ul>
+ * A recorder serves one run. Whoever runs the program closes it
+ * afterwards, whether or not the run finished.
+ */
+public abstract class ScopeRecorder implements AutoCloseable {
+    private final HistoryPolicy policy;
+    private int exits;
+    private int depth;
+
+    protected ScopeRecorder(HistoryPolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Counts a scope being left, depth open scopes deep including itself,
+     * and says whether its variables should be passed to {@link #record}.
+     */
+    public final boolean wants(int depth) {
+        this.depth = depth;
+        return policy.keeps(++exits, depth);
+    }
+
+    // Variables of the scope just counted by wants, keyed by identifier ID; the map is the recorder's to keep
+    public abstract void record(Map<Integer, Integer> variables);
+
+    // Scopes left so far; while record runs, the number of the scope being recorded
+    public int getExits() {
+        return exits;
+    }
+
+    // While record runs, the depth of the scope being recorded; 1 for the program's own
+    public int getDepth() {
+        return depth;
+    }
+
+    public HistoryPolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public void close() {
+        // Nothing is held back
+    }
+}
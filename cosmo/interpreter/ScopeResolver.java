@@ -0,0 +1,142 @@
+package cosmo.interpreter;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Binds identifier occurrences to frame slots at compile time, following the
+ * Interpreter's scoping rules: a declaration goes into the current scope, and
+ * a use finds the innermost scope that has already declared the name.
+ * <p>
+ * Every scope gets a fixed range of slots, one per name it declares. Scopes
+ * at the same nesting depth never run at the same time, so they share a
+ * range. In most cases, whether a name has been declared is known from the
+ * text alone. The exception is a loop body that uses a name before
+ * declaring it: that use refers to the outer variable on the first
+ * iteration and to the loop's own variable afterwards. Such a use resolves
+ * to a chain of candidate slots, innermost first, and the first one whose
+ * variable exists at run time is used.
+ */
+final class ScopeResolver {
+    // A use of a name: candidate slots, innermost first; definite if the only one is known to be declared
+    static final class Binding {
+        final int[] slots;
+        final boolean definite;
+
+        Binding(int[] slots, boolean definite) {
+            this.slots = slots;
+            this.definite = definite;
+        }
+    }
+
+    private static final class Scope {
+        final int index;
+        final int base;
+        final Map<Integer, Integer> slots = new LinkedHashMap<>(); // Identifier ID -> slot
+        final Set<Integer> declared = new HashSet<>();
+        final boolean loop;
+
+        Scope(int index, int base, boolean loop) {
+            this.index = index;
+            this.base = base;
+            this.loop = loop;
+        }
+    }
+
+    private final List<Scope> open = new ArrayList<>();
+    private final List<int[]> scopeIds = new ArrayList<>();
+    private final List<Integer> scopeBases = new ArrayList<>();
+    private int slotCount;
+
+    /**
+     * Opens a scope for the given declared identifier IDs, in statement order.
+     *
+     * @return the scope's index in {@link #scopeBases()} and {@link #scopeIds()}
+     */
+    int enter(List<Integer> declarations, boolean loop) {
+        int base = open.isEmpty() ? 0 : top().base + top().slots.size();
+        Scope scope = new Scope(scopeIds.size(), base, loop);
+        for (int id : declarations) {
+            scope.slots.putIfAbsent(id, base + scope.slots.size());
+        }
+        int[] ids = new int[scope.slots.size()];
+        int k = 0;
+        for (int id : scope.slots.keySet()) {
+            ids[k++] = id;
+        }
+        scopeIds.add(ids);
+        scopeBases.add(base);
+        slotCount = Math.max(slotCount, base + ids.length);
+        open.add(scope);
+        return scope.index;
+    }
+
+    void exit() {
+        open.remove(open.size() - 1);
+    }
+
+    // Slot that a declaration in the current scope writes
+    int declare(int id) {
+        Scope scope = top();
+        scope.declared.add(id);
+        return scope.slots.get(id);
+    }
+
+    Binding resolve(int id) {
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = open.size() - 1; i >= 0; i--) {
+            Scope scope = open.get(i);
+            Integer slot = scope.slots.get(id);
+            if (slot == null) {
+                continue;
+            }
+            if (scope.declared.contains(id)) {
+                candidates.add(slot);
+                return new Binding(toArray(candidates), candidates.size() == 1);
+            }
+            if (scope.loop) {
+                candidates.add(slot); // Declared later in the loop body, so set from the second iteration on
+            }
+        }
+        return new Binding(toArray(candidates), false);
+    }
+
+    // First slot of a scope returned by enter
+    int base(int scope) {
+        return scopeBases.get(scope);
+    }
+
+    // Identifier ID of each slot of a scope returned by enter
+    int[] ids(int scope) {
+        return scopeIds.get(scope);
+    }
+
+    int slotCount() {
+        return slotCount;
+    }
+
+    int[] scopeBases() {
+        return toArray(scopeBases);
+    }
+
+    // Identifier ID of each slot, per scope
+    int[][] scopeIds() {
+        return scopeIds.toArray(new int[0][]);
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    private Scope top() {
+        return open.get(open.size() - 1);
+    }
+}
@@ -0,0 +1,244 @@
+package cosmo.interpreter;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * {@link ProgramIO} over character streams.
+ * <p>
+ * Output collects in a buffer, 64K by default, and is only written when the buffer
+ * fills, at {@link #flush()}, and before an interactive Reception blocks,
+ * so its prompt is visible. A program that transmits thousands of lines
+ * costs a handful of writes instead of a console flush per line.
+ * <p>
+ * Input is parsed as a Comet straight from the read buffer, with no String
+ * per line. Lines end as for {@link java.util.Scanner#nextLine()}, and a
+ * line is accepted exactly when {@link VirtualMachine#parseComet} would
+ * accept it.
+ * <p>
+ * A StreamIO serves one run at a time.
+ */
+public final class StreamIO implements ProgramIO {
+    private static final int OUTPUT_BUFFER = 1 << 16;
+    private static final int INPUT_BUFFER = 1 << 13;
+    private static final int EOF = -1;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static StreamIO console;
+
+    private final Reader input;
+    private final Writer output;
+    private final boolean interactive;
+    private final boolean ownsInput;
+    private final char[] outBuffer;
+    private final char[] inBuffer;
+    private final char[] digits = new char[11];
+    private int outLength;
+    private int inPosition;
+    private int inLength;
+    // The last line ended in \r, so a \n that follows belongs to it
+    private boolean skipLineFeed;
+
+    /**
+     * Reads from input and writes to output. An interactive input has its
+     * pending output flushed before every read.
+     */
+    public StreamIO(Reader input, Writer output, boolean interactive) {
+        this(input, output, interactive, false);
+    }
+
+    /**
+     * Buffers at most bufferSize characters of output, for short runs that
+     * print little, and reads input one character at a time, so the reader
+     * is left just past the last line received and a later run can go on
+     * reading it. Lines should then end in {@code \n} alone: the {@code \n}
+     * of a {@code \r\n} is only skipped by the run that read the
+     * {@code \r}.
+     */
+    public StreamIO(Reader input, Writer output, boolean interactive, int bufferSize) {
+        this(input, output, interactive, false, bufferSize, 1);
+    }
+
+    private StreamIO(Reader input, Writer output, boolean interactive, boolean ownsInput) {
+        this(input, output, interactive, ownsInput, OUTPUT_BUFFER, INPUT_BUFFER);
+    }
+
+    private StreamIO(Reader input, Writer output, boolean interactive, boolean ownsInput, int bufferSize,
+            int inputBufferSize) {
+        // A whole Comet must fit, since it is appended in one piece
+        if (bufferSize < digits.length) {
+            throw new IllegalArgumentException("Buffer too small: " + bufferSize);
+        }
+        this.input = input;
+        this.output = output;
+        this.interactive = interactive;
+        this.ownsInput = ownsInput;
+        this.outBuffer = new char[bufferSize];
+        this.inBuffer = new char[inputBufferSize];
+    }
+
+    // Standard input and output, shared by every run so that input read ahead is not lost
+    public static synchronized StreamIO console() {
+        if (console == null) {
+            console = new StreamIO(new InputStreamReader(System.in), standardOutput(), true);
+        }
+        return console;
+    }
+
+    // Input lines from a file and output to standard output; close releases the file
+    public static StreamIO script(Path file) {
+        try {
+            return new StreamIO(Files.newBufferedReader(file), standardOutput(), false, true);
+        } catch (IOException e) {
+            throw new IllegalStateException("INPUT ERROR: Cannot read input file " + file + ".", e);
+        }
+    }
+
+    @Override
+    public void transmit(String text) {
+        append(text);
+        append(LINE_SEPARATOR);
+    }
+
+    @Override
+    public void transmit(int value) {
+        // Digits are written backwards from the end; a negative value counts down so MIN_VALUE fits
+        int start = digits.length;
+        int remaining = value < 0 ? value : -value;
+        do {
+            digits[--start] = (char) ('0' - remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        if (value < 0) {
+            digits[--start] = '-';
+        }
+        append(digits, start, digits.length - start);
+        append(LINE_SEPARATOR);
+    }
+
+    @Override
+    public int receive(String prompt) {
+        append(prompt);
+        if (interactive) {
+            flush();
+        }
+        int c = read();
+        if (c == EOF) {
+            throw new IllegalStateException("RECEPTION ERROR: No input left to receive.");
+        }
+        boolean negative = c == '-';
+        if (negative) {
+            c = read();
+        }
+        // The whole line is consumed even once it is known to be invalid
+        boolean valid = true;
+        boolean digit = false;
+        long value = 0;
+        for (; c != EOF && !endsLine(c); c = read()) {
+            if (c < '0' || c > '9') {
+                valid = false;
+            } else if (valid) {
+                digit = true;
+                value = value * 10 + (c - '0');
+                valid = value <= (long) Integer.MAX_VALUE + 1;
+            }
+        }
+        skipLineFeed = c == '\r';
+        value = negative ? -value : value;
+        if (!valid || !digit || value > Integer.MAX_VALUE) {
+            throw new IllegalStateException("RECEPTION ERROR: Reception input should be a Comet (integer).");
+        }
+        return (int) value;
+    }
+
+    @Override
+    public void flush() {
+        try {
+            output.write(outBuffer, 0, outLength);
+            outLength = 0;
+            output.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        if (ownsInput) {
+            try {
+                input.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Written through System.out so output keeps its place among the Parser's own messages
+    private static Writer standardOutput() {
+        return new OutputStreamWriter(System.out);
+    }
+
+    private void append(String text) {
+        int length = text.length();
+        for (int start = 0; start < length;) {
+            if (outLength == outBuffer.length) {
+                drain();
+            }
+            int count = Math.min(length - start, outBuffer.length - outLength);
+            text.getChars(start, start + count, outBuffer, outLength);
+            outLength += count;
+            start += count;
+        }
+    }
+
+    private void append(char[] chars, int start, int count) {
+        if (outBuffer.length - outLength < count) {
+            drain();
+        }
+        System.arraycopy(chars, start, outBuffer, outLength, count);
+        outLength += count;
+    }
+
+    // Writes the buffer out without flushing the underlying stream
+    private void drain() {
+        try {
+            output.write(outBuffer, 0, outLength);
+            outLength = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int read() {
+        if (inPosition == inLength) {
+            try {
+                inLength = input.read(inBuffer, 0, inBuffer.length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            inPosition = 0;
+            if (inLength <= 0) {
+                inLength = 0;
+                return EOF;
+            }
+        }
+        char c = inBuffer[inPosition++];
+        if (skipLineFeed) {
+            skipLineFeed = false;
+            if (c == '\n') {
+                return read();
+            }
+        }
+        return c;
+    }
+
+    private static boolean endsLine(int c) {
+        return c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029' || c == '\u0085';
+    }
+}
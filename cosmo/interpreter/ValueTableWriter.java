@@ -0,0 +1,75 @@
+package cosmo.interpreter;
+
+import cosmo.lexeme.IdentifierTable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * {@link ScopeRecorder} that writes each kept scope to the value table as
+ * soon as it is left, so the table holds nothing in memory and already
+ * lists every scope left before a run fails. Each scope is numbered by
+ * when it was left among all the run's scopes, kept or not, and lists its
+ * variables by identifier ID, which is their order of first appearance in
+ * the source:
+ *
+ * <pre>
+ * Scope 3:
+ * x : 45
+ *
+ * </pre>
+ *
+ * The value table is only an artifact, so a write error does not stop the
+ * run. Writing stops and the error is reported when the table is closed.
+ */
+public final class ValueTableWriter extends ScopeRecorder {
+    private final Writer out;
+    private final IdentifierTable identifiers;
+    private IOException error;
+
+    public ValueTableWriter(Writer out, IdentifierTable identifiers, HistoryPolicy policy) {
+        super(policy);
+        this.out = out;
+        this.identifiers = identifiers;
+    }
+
+    @Override
+    public void record(Map<Integer, Integer> variables) {
+        if (error != null) {
+            return;
+        }
+        try {
+            out.write("Scope " + getExits() + ":");
+            out.write(System.lineSeparator());
+            int[] ids = new int[variables.size()];
+            int count = 0;
+            for (int id : variables.keySet()) {
+                ids[count++] = id;
+            }
+            Arrays.sort(ids);
+            for (int id : ids) {
+                out.write(identifiers.name(id) + " : " + variables.get(id));
+                out.write(System.lineSeparator());
+            }
+            // A blank line separates the scopes
+            out.write(System.lineSeparator());
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            if (error == null) {
+                error = e;
+            }
+        }
+        if (error != null) {
+            System.err.println("Error writing value table to file: " + error.getMessage());
+        }
+    }
+}
@@ -1,35 +1,44 @@
 package cosmo.interpreter;
 
-import java.util.HashMap;
 import java.util.Stack;
 
 public class VariableEntry {
+    private int id;
     private String identifier;
-    private String value;
-    private Stack<HashMap<String, String>> scopes;
+    private int value;
+    private Stack<IntScope> scopes;
 
-    public VariableEntry(String identifier, String value, Stack<HashMap<String, String>> scopes) {
+    public VariableEntry(int id, String identifier, int value, Stack<IntScope> scopes) {
+        this.id = id;
         this.identifier = identifier;
         this.value = value;
         this.scopes = scopes;
     }
 
+    public int getId() {
+        return id;
+    }
+
     public String getIdentifier() {
         return identifier;
     }
 
-    public String getValue() {
+    public int getValue() {
         return value;
     }
 
-    public Stack<HashMap<String, String>> getScope() {
+    public void setValue(int value) {
+        this.value = value;
+    }
+
+    public Stack<IntScope> getScope() {
         return scopes;
     }
 
     @Override
     public String toString() {
         return "VariableEntry{" +
-                "value='" + value + '\'' +
+                "value=" + value +
                 ", scopes=" + scopes +
                 '}';
     }
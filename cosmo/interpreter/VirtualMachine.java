@@ -0,0 +1,244 @@
+package cosmo.interpreter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static cosmo.interpreter.Bytecode.*;
+
+/**
+ * Runs {@link Bytecode} with a single dispatch loop over the code array and
+ * an int operand stack.
+ * <p>
+ * Variables live in one frame of slots laid out by the compiler, so a read
+ * is one array access with no lookup. Entering a scope clears the declared
+ * flags of its slots; leaving it hands a copy of the declared ones to the
+ * scope history, as the tree-walking Interpreter does. Loop iterations,
+ * scopes and declarations are reported to the run's {@link Governor}.
+ */
+public final class VirtualMachine {
+    private final Bytecode program;
+    private final ProgramIO io;
+    private final ScopeRecorder recorder;
+    private final Governor governor;
+
+    private final int[] values;
+    private final boolean[] declared;
+
+    public VirtualMachine(Bytecode program, RunContext context) {
+        this.program = program;
+        this.io = context.getIO();
+        this.recorder = context.getRecorder();
+        this.governor = context.getGovernor();
+        this.values = new int[program.getSlots()];
+        this.declared = new boolean[program.getSlots()];
+    }
+
+    public void run() {
+        final int[] code = program.getCode();
+        final String[] strings = program.getStrings();
+        final int[] stack = new int[program.getMaxStack() + 1];
+        final int[] iterations = new int[program.getLoops()];
+        int sp = 0; // Index of the next free stack slot
+        int pc = 0;
+        while (true) {
+            switch (code[pc++]) {
+                case HALT:
+                    return;
+                case CONST:
+                    stack[sp++] = code[pc++];
+                    break;
+                case LOAD:
+                    stack[sp++] = values[code[pc++]];
+                    break;
+                case LOAD_EITHER:
+                    stack[sp++] = values[slot(code[pc], strings[code[pc + 1]])];
+                    pc += 2;
+                    break;
+                case DECLARE: {
+                    int slot = code[pc];
+                    if (declared[slot]) {
+                        throw new IllegalStateException(strings[code[pc + 1]]);
+                    }
+                    governor.declare();
+                    declared[slot] = true;
+                    values[slot] = stack[--sp];
+                    pc += 2;
+                    break;
+                }
+                case STORE:
+                    values[code[pc++]] = stack[--sp];
+                    break;
+                case STORE_EITHER:
+                    values[slot(code[pc], strings[code[pc + 1]])] = stack[--sp];
+                    pc += 2;
+                    break;
+                case ADD:
+                    sp--;
+                    stack[sp - 1] += stack[sp];
+                    break;
+                case SUB:
+                    sp--;
+                    stack[sp - 1] -= stack[sp];
+                    break;
+                case MUL:
+                    sp--;
+                    stack[sp - 1] *= stack[sp];
+                    break;
+                case DIV:
+                    sp--;
+                    if (stack[sp] == 0) {
+                        throw new IllegalStateException("ARITHMETIC ERROR: Division by zero.");
+                    }
+                    stack[sp - 1] /= stack[sp];
+                    break;
+                case EQ:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] == stack[sp] ? 1 : 0;
+                    break;
+                case NE:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] != stack[sp] ? 1 : 0;
+                    break;
+                case LT:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] < stack[sp] ? 1 : 0;
+                    break;
+                case LE:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] <= stack[sp] ? 1 : 0;
+                    break;
+                case GT:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] > stack[sp] ? 1 : 0;
+                    break;
+                case GE:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] >= stack[sp] ? 1 : 0;
+                    break;
+                case JUMP:
+                    pc = code[pc];
+                    break;
+                case JUMP_IF_ZERO:
+                    pc = stack[--sp] == 0 ? code[pc] : pc + 1;
+                    break;
+                case JUMP_IF_NOT_ZERO:
+                    pc = stack[--sp] != 0 ? code[pc] : pc + 1;
+                    break;
+                case AND:
+                    if (stack[sp - 1] == 0) {
+                        pc = code[pc];
+                    } else {
+                        sp--;
+                        pc++;
+                    }
+                    break;
+                case OR:
+                    if (stack[sp - 1] != 0) {
+                        pc = code[pc];
+                    } else {
+                        sp--;
+                        pc++;
+                    }
+                    break;
+                case SELECT:
+                    sp -= 2;
+                    if (stack[sp] != 0) {
+                        pc += 2;
+                    } else {
+                        pc = stack[sp + 1] != 0 ? code[pc] : code[pc + 1];
+                    }
+                    break;
+                case PRINT_TEXT:
+                    io.transmit(strings[code[pc++]]);
+                    break;
+                case PRINT_VALUE:
+                    io.transmit(stack[--sp]);
+                    break;
+                case RECEIVE: {
+                    int slot = slot(code[pc], strings[code[pc + 2]]);
+                    values[slot] = io.receive(strings[code[pc + 1]]);
+                    pc += 3;
+                    break;
+                }
+                case ENTER_SCOPE: {
+                    governor.enterScope();
+                    int base = program.getScopeBases()[code[pc]];
+                    Arrays.fill(declared, base, base + program.getScopeIds()[code[pc]].length, false);
+                    pc++;
+                    break;
+                }
+                case EXIT_SCOPE:
+                    exitScope(code[pc++]);
+                    break;
+                case LOOP_START:
+                    iterations[code[pc++]] = 0;
+                    break;
+                case LOOP_CHECK:
+                    governor.iterate(++iterations[code[pc++]]);
+                    break;
+                case INCREMENT:
+                    values[code[pc]] += code[pc + 1];
+                    pc += 2;
+                    break;
+                default:
+                    throw new IllegalStateException("VM ERROR: Unknown opcode " + code[pc - 1] + " at " + (pc - 1) + ".");
+            }
+        }
+    }
+
+    // First slot of the chain whose variable exists in the current run of its scope
+    private int slot(int chain, String message) {
+        for (int slot : program.getChains()[chain]) {
+            if (declared[slot]) {
+                return slot;
+            }
+        }
+        throw new IllegalStateException(message);
+    }
+
+    private void exitScope(int index) {
+        int base = program.getScopeBases()[index];
+        int[] ids = program.getScopeIds()[index];
+        // The variables are only boxed for a scope the recorder keeps
+        HashMap<Integer, Integer> scope = recorder.wants(governor.getDepth()) ? new HashMap<>() : null;
+        int count = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (declared[base + i]) {
+                count++;
+                if (scope != null) {
+                    scope.put(ids[i], values[base + i]);
+                }
+            }
+        }
+        if (scope != null) {
+            recorder.record(scope);
+        }
+        governor.exitScope(count);
+    }
+
+    // An optional minus sign and digits that fit in an int
+    public static int parseComet(String text) {
+        int length = text.length();
+        boolean negative = length > 0 && text.charAt(0) == '-';
+        int i = negative ? 1 : 0;
+        if (i == length) {
+            throw new IllegalStateException("RECEPTION ERROR: Reception input should be a Comet (integer).");
+        }
+        long value = 0;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalStateException("RECEPTION ERROR: Reception input should be a Comet (integer).");
+            }
+            value = value * 10 + (c - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new IllegalStateException("RECEPTION ERROR: Reception input should be a Comet (integer).");
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new IllegalStateException("RECEPTION ERROR: Reception input should be a Comet (integer).");
+        }
+        return (int) value;
+    }
+}
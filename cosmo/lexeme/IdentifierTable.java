@@ -0,0 +1,57 @@
+package cosmo.lexeme;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns identifier names into dense integer IDs 0, 1, 2, ... in order of
+ * first appearance. The table may be read from many threads, but IDs only
+ * follow source order when one thread interns; {@link ParallelLexer} gives
+ * each chunk its own table for that reason. After lexing, scopes and value tables key
+ * variables by ID and only go back to the name for diagnostics and output
+ * files.
+ */
+public final class IdentifierTable {
+    public static final int NO_ID = -1;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * ID of {@code name}, assigning the next free one on first sight.
+     */
+    public int intern(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : ids.computeIfAbsent(name, this::append);
+    }
+
+    /**
+     * ID of {@code name}, or {@link #NO_ID} if it never appeared.
+     */
+    public int lookup(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : NO_ID;
+    }
+
+    public synchronized String name(int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("Unknown identifier id " + id);
+        }
+        return names[id];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // Called at most once per name, under the map's per-key lock
+    private synchronized Integer append(String name) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+        }
+        names[size] = name;
+        return size++;
+    }
+}
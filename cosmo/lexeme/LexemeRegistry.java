@@ -0,0 +1,164 @@
+package cosmo.lexeme;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Immutable registry of every fixed lexeme (reserved words, separators and
+ * operators), precomputed once from the lexeme maps into array-backed tries.
+ * Lookups walk the source characters in place, so recognizing a fixed
+ * lexeme allocates nothing.
+ */
+public final class LexemeRegistry {
+    public static final int NO_MATCH = -1;
+
+    private static final Trie EXACT = new Trie();
+    private static final Trie FOLDED = new Trie();
+
+    static {
+        Separator.createSeparatorMap().forEach((lexeme, name) -> register(lexeme, "sep_" + name));
+        Comparison.createComparisonMap().forEach((lexeme, name) -> register(lexeme, "comp_" + name));
+        LogicalOperators.createLogicalMap().forEach((lexeme, name) -> register(lexeme, "logic_" + name));
+        ArithmeticOperators.createArithmeticMap().forEach((lexeme, name) -> register(lexeme, "arith_" + name));
+        for (Map.Entry<String, String> entry : ReservedWords.createReservedWordsMap().entrySet()) {
+            String lexeme = entry.getKey();
+            TokenKind kind = register(lexeme, entry.getValue());
+            FOLDED.add(lexeme.toLowerCase(), kind, lexeme);
+        }
+    }
+
+    private LexemeRegistry() {
+    }
+
+    /**
+     * Longest fixed lexeme in {@code source[start, end)} that begins at
+     * {@code start} (maximal munch).
+     *
+     * @return the accepting state, or {@link #NO_MATCH}
+     */
+    public static int matchLongest(CharSequence source, int start, int end) {
+        return EXACT.longest(source, start, end);
+    }
+
+    /**
+     * Fixed lexeme spelled exactly as {@code source[start, end)}.
+     *
+     * @return the accepting state, or {@link #NO_MATCH}
+     */
+    public static int matchExact(CharSequence source, int start, int end) {
+        return EXACT.exact(source, start, end, false);
+    }
+
+    /**
+     * Reserved word spelled as {@code source[start, end)} in any letter case.
+     *
+     * @return the accepting state, or {@link #NO_MATCH}
+     */
+    public static int matchReservedIgnoreCase(CharSequence source, int start, int end) {
+        return FOLDED.exact(source, start, end, true);
+    }
+
+    /**
+     * Whether some fixed lexeme begins with {@code c}.
+     */
+    public static boolean startsFixedLexeme(char c) {
+        return EXACT.step(0, c) != NO_MATCH;
+    }
+
+    public static TokenKind kind(int state) {
+        return state == NO_MATCH ? null : EXACT.kinds[state];
+    }
+
+    public static String lexeme(int state) {
+        return EXACT.lexemes[state];
+    }
+
+    public static int length(int state) {
+        return EXACT.depths[state];
+    }
+
+    private static TokenKind register(String lexeme, String label) {
+        TokenKind kind = TokenKind.forLabel(label);
+        if (kind == null) {
+            throw new IllegalStateException("No token kind for lexeme " + lexeme + " (" + label + ")");
+        }
+        EXACT.add(lexeme, kind, lexeme);
+        return kind;
+    }
+
+    // Array-backed trie over 7-bit ASCII; state 0 is the root
+    private static final class Trie {
+        private static final int ALPHABET = 128;
+        private static final int INITIAL_STATES = 64;
+
+        private int[] next = newTable(INITIAL_STATES);
+        private TokenKind[] kinds = new TokenKind[INITIAL_STATES];
+        private String[] lexemes = new String[INITIAL_STATES];
+        private int[] depths = new int[INITIAL_STATES];
+        private int stateCount = 1;
+
+        void add(String key, TokenKind kind, String lexeme) {
+            int state = 0;
+            for (int i = 0; i < key.length(); i++) {
+                char c = key.charAt(i);
+                int target = step(state, c);
+                if (target == NO_MATCH) {
+                    target = newState(i + 1);
+                    next[state * ALPHABET + c] = target;
+                }
+                state = target;
+            }
+            kinds[state] = kind;
+            lexemes[state] = lexeme;
+        }
+
+        int step(int state, char c) {
+            return c < ALPHABET ? next[state * ALPHABET + c] : NO_MATCH;
+        }
+
+        int longest(CharSequence source, int start, int end) {
+            int state = 0;
+            int accepted = NO_MATCH;
+            for (int i = start; i < end; i++) {
+                state = step(state, source.charAt(i));
+                if (state == NO_MATCH) {
+                    break;
+                }
+                if (kinds[state] != null) {
+                    accepted = state;
+                }
+            }
+            return accepted;
+        }
+
+        int exact(CharSequence source, int start, int end, boolean foldCase) {
+            int state = 0;
+            for (int i = start; i < end && state != NO_MATCH; i++) {
+                char c = source.charAt(i);
+                state = step(state, foldCase ? Character.toLowerCase(c) : c);
+            }
+            return state != NO_MATCH && kinds[state] != null ? state : NO_MATCH;
+        }
+
+        private int newState(int depth) {
+            int state = stateCount++;
+            if (state == kinds.length) {
+                int capacity = kinds.length * 2;
+                int[] grown = newTable(capacity);
+                System.arraycopy(next, 0, grown, 0, next.length);
+                next = grown;
+                kinds = Arrays.copyOf(kinds, capacity);
+                lexemes = Arrays.copyOf(lexemes, capacity);
+                depths = Arrays.copyOf(depths, capacity);
+            }
+            depths[state] = depth;
+            return state;
+        }
+
+        private static int[] newTable(int states) {
+            int[] table = new int[states * ALPHABET];
+            Arrays.fill(table, NO_MATCH);
+            return table;
+        }
+    }
+}
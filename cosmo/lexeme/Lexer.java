@@ -0,0 +1,290 @@
+package cosmo.lexeme;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Hand-written scanner that walks the source characters once and recognizes
+ * every lexeme with maximal munch. Tokens no longer need to be separated by
+ * whitespace, and string literals and comments are handled inline.
+ * <p>
+ * The lexer is also a lazy iterator: tokens are scanned only as they are
+ * requested, so a caller that streams them never holds the whole token list.
+ */
+public class Lexer implements Iterator<Token> {
+    private final CharSequence source;
+    private final int end;
+    private final IdentifierTable identifiers;
+    // A mapped source is indexed by byte, so columns skip UTF-8 continuation bytes
+    private final boolean byteIndexed;
+    private final ArrayDeque<Token> pending = new ArrayDeque<>();
+    private final List<String> diagnostics = new ArrayList<>();
+    // Shares the text of repeated lexemes; null when streaming, so no text outlives its token
+    private final Map<String, String> lexemes;
+    private int pos;
+    private int line;
+    private int lineStart;
+    // Continuation bytes between countedLineStart and countedTo, counted once per line
+    private int countedLineStart = -1;
+    private int countedTo;
+    private int continuationBytes;
+    private int errorCount = 0;
+    private TokenKind lastKind = null;
+
+    public Lexer(CharSequence source, IdentifierTable identifiers) {
+        this(source, 0, source.length(), 1, 0, identifiers, new HashMap<>());
+    }
+
+    // Lexes only source[start, end), which must not split a token
+    Lexer(CharSequence source, int start, int end, int line, int lineStart, IdentifierTable identifiers) {
+        this(source, start, end, line, lineStart, identifiers, new HashMap<>());
+    }
+
+    private Lexer(CharSequence source, int start, int end, int line, int lineStart, IdentifierTable identifiers,
+            Map<String, String> lexemes) {
+        this.source = source;
+        this.lexemes = lexemes;
+        this.end = end;
+        this.pos = start;
+        this.line = line;
+        this.lineStart = lineStart;
+        this.identifiers = identifiers;
+        this.byteIndexed = source instanceof MappedSource;
+    }
+
+    /**
+     * A lexer for a caller that consumes each token as it is scanned. Only
+     * the identifier table grows with the input; other text is copied per
+     * token instead of shared.
+     */
+    public static Lexer streaming(CharSequence source, IdentifierTable identifiers) {
+        return new Lexer(source, 0, source.length(), 1, 0, identifiers, null);
+    }
+
+    public Token[] tokenize() {
+        List<Token> tokens = new ArrayList<>();
+        while (hasNext()) {
+            tokens.add(next());
+        }
+        return tokens.toArray(new Token[0]);
+    }
+
+    @Override
+    public boolean hasNext() {
+        fill();
+        return !pending.isEmpty();
+    }
+
+    @Override
+    public Token next() {
+        fill();
+        if (pending.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return pending.poll();
+    }
+
+    // Scans until at least one token is pending or the source is exhausted
+    private void fill() {
+        while (pending.isEmpty() && pos < end) {
+            char c = source.charAt(pos);
+            if (Character.isWhitespace(c)) { // White Space
+                advance();
+            } else if (isWordChar(c)) { // Keyword / Comet / Identifier
+                scanWord();
+            } else if (c == '"') { // String
+                scanString();
+            } else if (c == '/' && peek(1) == '*') { // Comment
+                scanComment();
+            } else if (c == '-' && isDigit(peek(1)) && !followsOperand()) { // Negative Comet
+                scanNegativeLiteral();
+            } else { // Operator / Separator
+                scanOperator();
+            }
+        }
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public List<String> getDiagnostics() {
+        return diagnostics;
+    }
+
+    // Hands over the diagnostics collected so far, so a long stream can report them as it goes
+    public List<String> drainDiagnostics() {
+        if (diagnostics.isEmpty()) {
+            return List.of();
+        }
+        List<String> drained = new ArrayList<>(diagnostics);
+        diagnostics.clear();
+        return drained;
+    }
+
+    private void scanWord() {
+        int start = pos;
+        boolean digitsOnly = true;
+        while (pos < end && isWordChar(source.charAt(pos))) {
+            digitsOnly &= isDigit(source.charAt(pos));
+            pos++;
+        }
+
+        if (digitsOnly) {
+            addToken(TokenKind.COMET_LITERAL, intern(start, pos), start);
+            return;
+        }
+        int reserved = LexemeRegistry.matchExact(source, start, pos);
+        if (reserved != LexemeRegistry.NO_MATCH) {
+            addToken(LexemeRegistry.kind(reserved), LexemeRegistry.lexeme(reserved), start);
+            return;
+        }
+        // Reserved words written in the wrong case are flagged but still kept as identifiers
+        if (LexemeRegistry.matchReservedIgnoreCase(source, start, pos) != LexemeRegistry.NO_MATCH) {
+            addInvalidToken(start);
+        }
+        String word = intern(start, pos);
+        emit(new Token(TokenKind.IDENTIFIER, word, identifiers.intern(word), line, column(start)));
+    }
+
+    private void scanNegativeLiteral() {
+        int start = pos++;
+        while (pos < end && isDigit(source.charAt(pos))) {
+            pos++;
+        }
+        if (pos < end && isWordChar(source.charAt(pos))) {
+            // "-5abc" is a minus followed by an identifier, not a literal
+            pos = start;
+            scanOperator();
+            return;
+        }
+        addToken(TokenKind.COMET_LITERAL, intern(start, pos), start);
+    }
+
+    private void scanString() {
+        int start = pos;
+        int startLine = line;
+        int startColumn = column(start);
+        advance();
+        while (pos < end && source.charAt(pos) != '"') {
+            advance();
+        }
+        if (pos >= end) { // Unterminated string
+            addInvalidToken(startLine, startColumn, start);
+            return;
+        }
+        pos++;
+        emit(new Token(TokenKind.STRING, intern(start, pos), startLine, startColumn));
+    }
+
+    private void scanComment() {
+        int start = pos;
+        int startLine = line;
+        int startColumn = column(start);
+        pos += 2;
+        while (pos < end && !(source.charAt(pos) == '*' && peek(1) == '/')) {
+            advance();
+        }
+        if (pos >= end) { // Unterminated comment
+            addInvalidToken(startLine, startColumn, start);
+            return;
+        }
+        pos += 2;
+    }
+
+    private void scanOperator() {
+        int start = pos;
+        int state = LexemeRegistry.matchLongest(source, start, end);
+        if (state != LexemeRegistry.NO_MATCH) {
+            pos += LexemeRegistry.length(state);
+            addToken(LexemeRegistry.kind(state), LexemeRegistry.lexeme(state), start);
+            return;
+        }
+        // Swallow the rest of an unrecognized run so it is reported once
+        pos++;
+        while (pos < end && isUnknownChar(source.charAt(pos))) {
+            pos++;
+        }
+        addInvalidToken(start);
+    }
+
+    private void addToken(TokenKind kind, String lexeme, int start) {
+        emit(new Token(kind, lexeme, line, column(start)));
+    }
+
+    private void emit(Token token) {
+        pending.add(token);
+        lastKind = token.getKind();
+    }
+
+    private void addInvalidToken(int start) {
+        addInvalidToken(line, column(start), start);
+    }
+
+    private void addInvalidToken(int tokenLine, int tokenColumn, int start) {
+        errorCount++;
+        emit(new Token(TokenKind.INVALID, Integer.toString(errorCount), tokenLine, tokenColumn));
+        diagnostics.add("Invalid token " + source.subSequence(start, Math.min(pos, start + 20))
+                + " at line " + tokenLine + ", column " + tokenColumn);
+    }
+
+    private String intern(int start, int stop) {
+        String text = source.subSequence(start, stop).toString();
+        if (lexemes == null) {
+            return text;
+        }
+        String existing = lexemes.putIfAbsent(text, text);
+        return existing != null ? existing : text;
+    }
+
+    // Character column of a position on the current line, counting from 1
+    private int column(int position) {
+        if (!byteIndexed) {
+            return position - lineStart + 1;
+        }
+        if (countedLineStart != lineStart || position < countedTo) {
+            countedLineStart = lineStart;
+            countedTo = lineStart;
+            continuationBytes = 0;
+        }
+        for (; countedTo < position; countedTo++) {
+            if ((source.charAt(countedTo) & 0xC0) == 0x80) {
+                continuationBytes++;
+            }
+        }
+        return position - lineStart + 1 - continuationBytes;
+    }
+
+    private void advance() {
+        if (source.charAt(pos++) == '\n') {
+            line++;
+            lineStart = pos;
+        }
+    }
+
+    private boolean followsOperand() {
+        return lastKind == TokenKind.IDENTIFIER || lastKind == TokenKind.COMET_LITERAL || lastKind == TokenKind.CL_PAR;
+    }
+
+    private char peek(int offset) {
+        int index = pos + offset;
+        return index < end ? source.charAt(index) : '\0';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c) || c == '_';
+    }
+
+    private static boolean isUnknownChar(char c) {
+        return !Character.isWhitespace(c) && !isWordChar(c) && c != '"' && !LexemeRegistry.startsFixedLexeme(c);
+    }
+}
@@ -0,0 +1,64 @@
+package cosmo.lexeme;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Source text backed by a memory-mapped file. Characters are read straight
+ * from the mapped bytes, so the source is never copied onto the heap; only
+ * the lexemes the lexer slices out become strings.
+ * <p>
+ * Every lexeme CosmoCode recognizes is ASCII, so the scanner can walk raw
+ * bytes. Slices are decoded as UTF-8, which keeps non-ASCII text inside
+ * string literals intact. Positions are byte offsets; the {@link Lexer}
+ * still reports columns in characters.
+ */
+public final class MappedSource implements CharSequence {
+    private final ByteBuffer buffer;
+
+    private MappedSource(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public static MappedSource open(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Input file too large to map: " + path + " (" + size + " bytes)");
+            }
+            // The mapping stays valid after the channel is closed
+            return new MappedSource(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    @Override
+    public int length() {
+        return buffer.limit();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (buffer.get(index) & 0xFF);
+    }
+
+    /**
+     * Decodes the bytes in {@code [start, end)} as UTF-8. The result may be
+     * shorter than {@code end - start} when the range holds multi-byte
+     * characters.
+     */
+    @Override
+    public String subSequence(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length());
+    }
+}
@@ -0,0 +1,225 @@
+package cosmo.lexeme;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Lexes large sources on a ForkJoinPool. The source is cut into chunks that
+ * end right after a statement-terminating semicolon outside any string or
+ * comment, so no token straddles two chunks. Each chunk is lexed by its own
+ * {@link Lexer} and the token arrays are merged back in source order.
+ * Chunks intern identifiers into tables of their own, and the merge gives
+ * them their IDs in the shared table chunk by chunk, so every identifier
+ * gets the ID a sequential run would give it.
+ * <p>
+ * Finding safe cut points needs to know whether a position is inside a
+ * string or comment. Every slice is first scanned from each possible entry
+ * state (code, string, comment) in parallel; chaining the slice exit states
+ * is then a cheap sequential step over the slices only.
+ */
+public class ParallelLexer {
+    // Below this size splitting costs more than it saves
+    public static final int MIN_PARALLEL_LENGTH = 2 << 20;
+    private static final int MIN_SLICE_LENGTH = 256 << 10;
+
+    private static final int CODE = 0;
+    private static final int STRING = 1;
+    private static final int COMMENT = 2;
+    private static final int STATES = 3;
+
+    private final CharSequence source;
+    private final IdentifierTable identifiers;
+    private final ForkJoinPool pool;
+    private final List<String> diagnostics = new ArrayList<>();
+    private int errorCount = 0;
+
+    public ParallelLexer(CharSequence source, IdentifierTable identifiers, ForkJoinPool pool) {
+        this.source = source;
+        this.identifiers = identifiers;
+        this.pool = pool;
+    }
+
+    public Token[] tokenize() {
+        int[] starts = findChunkStarts();
+        int chunks = starts.length - 1;
+        int[] lines = new int[chunks];
+        int[] lineStarts = new int[chunks];
+        locateLines(starts, lines, lineStarts);
+
+        Lexer[] lexers = new Lexer[chunks];
+        IdentifierTable[] tables = new IdentifierTable[chunks];
+        Token[][] results = new Token[chunks][];
+        forEach(chunks, k -> {
+            tables[k] = new IdentifierTable();
+            lexers[k] = new Lexer(source, starts[k], starts[k + 1], lines[k], lineStarts[k], tables[k]);
+            results[k] = lexers[k].tokenize();
+        });
+        return merge(lexers, tables, results);
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public List<String> getDiagnostics() {
+        return diagnostics;
+    }
+
+    private int[] findChunkStarts() {
+        int length = source.length();
+        int slices = Math.max(1, Math.min(pool.getParallelism() * 4, length / MIN_SLICE_LENGTH));
+        int[] sliceStarts = new int[slices + 1];
+        for (int i = 1; i < slices; i++) {
+            int target = Math.max(sliceStarts[i - 1], (int) ((long) length * i / slices));
+            sliceStarts[i] = alignToWhitespace(target);
+        }
+        sliceStarts[slices] = length;
+
+        // For every slice and entry state: the exit state and the first safe cut
+        int[][] exitState = new int[slices][STATES];
+        int[][] firstCut = new int[slices][STATES];
+        forEach(slices, i -> {
+            for (int state = 0; state < STATES; state++) {
+                scanSlice(sliceStarts[i], sliceStarts[i + 1], state, exitState[i], firstCut[i]);
+            }
+        });
+
+        List<Integer> cuts = new ArrayList<>();
+        cuts.add(0);
+        int state = CODE;
+        for (int i = 0; i < slices; i++) {
+            int cut = firstCut[i][state];
+            if (i > 0 && cut >= 0 && cut > cuts.get(cuts.size() - 1)) {
+                cuts.add(cut);
+            }
+            state = exitState[i][state];
+        }
+        cuts.add(length);
+        return cuts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Simulates the string/comment structure of one slice, mirroring the Lexer
+    private void scanSlice(int from, int to, int entryState, int[] exitState, int[] firstCut) {
+        int state = entryState;
+        int cut = -1;
+        int i = from;
+        while (i < to) {
+            char c = source.charAt(i);
+            if (state == CODE) {
+                if (c == '"') {
+                    state = STRING;
+                } else if (c == '/' && i + 1 < source.length() && source.charAt(i + 1) == '*') {
+                    state = COMMENT;
+                    i++;
+                } else if (c == ';' && cut < 0) {
+                    cut = i + 1;
+                }
+            } else if (state == STRING) {
+                if (c == '"') {
+                    state = CODE;
+                }
+            } else if (c == '*' && i + 1 < source.length() && source.charAt(i + 1) == '/') {
+                state = CODE;
+                i++;
+            }
+            i++;
+        }
+        exitState[entryState] = state;
+        firstCut[entryState] = cut;
+    }
+
+    // Slice edges sit on whitespace so a two-character comment delimiter is never split
+    private int alignToWhitespace(int index) {
+        while (index < source.length() && !Character.isWhitespace(source.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private void locateLines(int[] starts, int[] lines, int[] lineStarts) {
+        int[] newlines = new int[starts.length - 1];
+        int[] lastNewline = new int[starts.length - 1];
+        forEach(newlines.length, k -> {
+            lastNewline[k] = -1;
+            for (int i = starts[k]; i < starts[k + 1]; i++) {
+                if (source.charAt(i) == '\n') {
+                    newlines[k]++;
+                    lastNewline[k] = i;
+                }
+            }
+        });
+
+        int line = 1;
+        int lineStart = 0;
+        for (int k = 0; k < lines.length; k++) {
+            lines[k] = line;
+            lineStarts[k] = lineStart;
+            line += newlines[k];
+            if (lastNewline[k] >= 0) {
+                lineStart = lastNewline[k] + 1;
+            }
+        }
+    }
+
+    // Concatenates chunk tokens in order, renumbering invalid_token_N and identifier IDs to run across chunks
+    private Token[] merge(Lexer[] lexers, IdentifierTable[] tables, Token[][] results) {
+        int total = 0;
+        for (Token[] tokens : results) {
+            total += tokens.length;
+        }
+        Token[] merged = new Token[total];
+        int offset = 0;
+        for (int k = 0; k < results.length; k++) {
+            // A chunk's local IDs follow first appearance in the chunk, so interning them in order keeps that order
+            int[] ids = new int[tables[k].size()];
+            for (int local = 0; local < ids.length; local++) {
+                ids[local] = identifiers.intern(tables[k].name(local));
+            }
+            for (Token token : results[k]) {
+                if (token.getKind() == TokenKind.INVALID && errorCount > 0) {
+                    int number = Integer.parseInt(token.getLexeme()) + errorCount;
+                    token = new Token(TokenKind.INVALID, Integer.toString(number), token.getLine(),
+                            token.getColumn());
+                } else if (token.getKind() == TokenKind.IDENTIFIER && ids[token.getId()] != token.getId()) {
+                    token = new Token(TokenKind.IDENTIFIER, token.getLexeme(), ids[token.getId()], token.getLine(),
+                            token.getColumn());
+                }
+                merged[offset++] = token;
+            }
+            errorCount += lexers[k].getErrorCount();
+            diagnostics.addAll(lexers[k].getDiagnostics());
+        }
+        return merged;
+    }
+
+    private void forEach(int count, IntConsumer body) {
+        pool.invoke(new Range(0, count, body));
+    }
+
+    private static final class Range extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final IntConsumer body;
+
+        Range(int from, int to, IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                body.accept(from);
+            } else if (to > from) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Range(from, middle, body), new Range(middle, to, body));
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package cosmo.lexeme;
+
+/**
+ * A lexed token: its kind, the interned source text, the identifier ID (for
+ * identifiers) and a packed line/column position.
+ */
+public final class Token {
+    private final TokenKind kind;
+    private final String lexeme;
+    private final int id;
+    private final long span;
+
+    public Token(TokenKind kind, String lexeme, int line, int column) {
+        this(kind, lexeme, IdentifierTable.NO_ID, line, column);
+    }
+
+    public Token(TokenKind kind, String lexeme, int id, int line, int column) {
+        this.kind = kind;
+        this.lexeme = lexeme;
+        this.id = id;
+        this.span = ((long) line << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    public TokenKind getKind() {
+        return kind;
+    }
+
+    public String getLexeme() {
+        return lexeme;
+    }
+
+    // Dense identifier ID, or IdentifierTable.NO_ID for other kinds
+    public int getId() {
+        return id;
+    }
+
+    public long getSpan() {
+        return span;
+    }
+
+    public int getLine() {
+        return (int) (span >>> 32);
+    }
+
+    public int getColumn() {
+        return (int) span;
+    }
+
+    public String getPosition() {
+        return "line " + getLine() + ", column " + getColumn();
+    }
+
+    /**
+     * Renders the token the way the tokenizer output has always shown it,
+     * e.g. comet_token, id_x, cmt_5.
+     */
+    @Override
+    public String toString() {
+        return kind.carriesText() ? kind.getPrefix() + lexeme : kind.label();
+    }
+}
@@ -0,0 +1,94 @@
+package cosmo.lexeme;
+
+import cosmo.grammar.GrammarSymbol;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public enum TokenKind implements GrammarSymbol {
+    // Reserved words
+    COMET("comet_token"),
+    VOYAGE("voyage_token"),
+    RECEPTION("reception_token"),
+    TRANSMISSION("transmission_token"),
+    WHIRL("whirl_token"),
+    LAUNCH_WHIRL("launchwhirl_token"),
+    ORBIT("orbit_token"),
+    NAVIGATE("navigate_token"),
+    PROPEL("propel_token"),
+
+    // Separators
+    OP_PAR("sep_op_par"),
+    CL_PAR("sep_cl_par"),
+    OP_BRAC("sep_op_brac"),
+    CL_BRAC("sep_cl_brac"),
+    COMMA("sep_comma"),
+    SEMICOLON("sep_semicolon"),
+
+    // Comparison operators
+    EQ("comp_eq"),
+    GREAT_EQ("comp_great_eq"),
+    LESS_EQ("comp_less_eq"),
+    NOT("comp_not"),
+    GREAT("comp_great"),
+    LESS("comp_less"),
+
+    // Logical operators
+    AND("logic_and"),
+    OR("logic_or"),
+
+    // Arithmetic operators
+    PLUS("arith_plus"),
+    MINUS("arith_minus"),
+    MULT("arith_mult"),
+    DIV("arith_div"),
+    INCR("arith_incr"),
+    DECR("arith_decr"),
+    ASSIGN("arith_assign"),
+
+    // Lexemes whose text is part of the token
+    COMET_LITERAL("cmt", "cmt_"),
+    IDENTIFIER("id", "id_"),
+    STRING("string_literal", ""),
+    INVALID("invalid_token", "invalid_token_");
+
+    private static final Map<String, TokenKind> BY_LABEL = new HashMap<>();
+
+    static {
+        for (TokenKind kind : values()) {
+            BY_LABEL.put(kind.label, kind);
+        }
+    }
+
+    private final String label;
+    private final String prefix;
+
+    TokenKind(String label) {
+        this(label, null);
+    }
+
+    TokenKind(String label, String prefix) {
+        this.label = label;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public String label() {
+        return label;
+    }
+
+    /**
+     * Whether tokens of this kind are written out with their lexeme, e.g. id_x.
+     */
+    public boolean carriesText() {
+        return prefix != null;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public static TokenKind forLabel(String label) {
+        return BY_LABEL.get(label);
+    }
+}
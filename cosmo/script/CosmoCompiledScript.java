@@ -0,0 +1,67 @@
+package cosmo.script;
+
+import cosmo.CompiledProgram;
+import cosmo.interpreter.Governor;
+import cosmo.interpreter.HistoryPolicy;
+import cosmo.interpreter.Limits;
+import cosmo.interpreter.ProgramIO;
+import cosmo.interpreter.RunContext;
+import cosmo.interpreter.ScopeHistory;
+import cosmo.interpreter.StreamIO;
+import java.util.Map;
+import javax.script.Bindings;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+
+/**
+ * A script compiled by the {@link CosmoScriptEngine}. Evaluating it runs
+ * the shared {@link CompiledProgram} with a new context each time, so
+ * evaluations never see each other's state.
+ */
+final class CosmoCompiledScript extends CompiledScript {
+    // Script output is usually a few lines, so each evaluation only buffers a little
+    private static final int BUFFER = 1 << 10;
+
+    private final ScriptEngine engine;
+    private final CompiledProgram program;
+
+    CosmoCompiledScript(ScriptEngine engine, CompiledProgram program) {
+        this.engine = engine;
+        this.program = program;
+    }
+
+    @Override
+    public Object eval(ScriptContext context) throws ScriptException {
+        ProgramIO io = new StreamIO(context.getReader(), context.getWriter(), false, BUFFER);
+        // Only the program's own scope is needed for the bindings
+        ScopeHistory history = new ScopeHistory(HistoryPolicy.FINAL);
+        try {
+            program.run(new RunContext(io, new Governor(limits(context)), history));
+        } catch (RuntimeException e) {
+            throw scriptException(e);
+        }
+        Bindings bindings = context.getBindings(ScriptContext.ENGINE_SCOPE);
+        for (Map.Entry<Integer, Integer> variable : history.getFinalScope().entrySet()) {
+            bindings.put(program.getIdentifierName(variable.getKey()), variable.getValue());
+        }
+        return null;
+    }
+
+    @Override
+    public ScriptEngine getEngine() {
+        return engine;
+    }
+
+    static ScriptException scriptException(RuntimeException e) {
+        ScriptException wrapped = new ScriptException(String.valueOf(e.getMessage()));
+        wrapped.initCause(e);
+        return wrapped;
+    }
+
+    private static Limits limits(ScriptContext context) {
+        Object limits = context.getAttribute(CosmoScriptEngine.LIMITS_ATTRIBUTE);
+        return limits instanceof Limits ? (Limits) limits : Limits.DEFAULT;
+    }
+}
@@ -0,0 +1,103 @@
+package cosmo.script;
+
+import cosmo.CosmoEngine;
+import cosmo.interpreter.Engine;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import javax.script.AbstractScriptEngine;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+
+/**
+ * CosmoCode as a {@code javax.script} engine. {@link #compile(String)}
+ * lexes and parses a script once into a {@link CompiledScript} that can be
+ * evaluated any number of times, from any number of threads at once;
+ * {@code eval} compiles and evaluates in one go.
+ * <p>
+ * When a script is evaluated:
+ * <ul>
+ * <li>Transmission writes to the context's writer and Reception reads lines
+ * from its reader.</li>
+ * <li>The run is limited by the context's {@code cosmo.limits} attribute,
+ * a {@link cosmo.interpreter.Limits}, or by the defaults.</li>
+ * <li>Afterwards the program's top-level variables are put in the engine
+ * scope bindings by name. The result of {@code eval} is null.</li>
+ * <li>Errors, including a rejected parse, become {@link ScriptException}s
+ * with the same message the command line prints.</li>
+ * </ul>
+ * Scripts compile for the engine in the context's {@code cosmo.engine}
+ * attribute, an {@link Engine} or its name, or else for the one named by
+ * the {@code cosmo.engine} system property.
+ */
+public final class CosmoScriptEngine extends AbstractScriptEngine implements Compilable {
+    public static final String ENGINE_ATTRIBUTE = "cosmo.engine";
+    public static final String LIMITS_ATTRIBUTE = "cosmo.limits";
+
+    private final ScriptEngineFactory factory;
+
+    CosmoScriptEngine(ScriptEngineFactory factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public Object eval(String script, ScriptContext context) throws ScriptException {
+        return compile(script, context).eval(context);
+    }
+
+    @Override
+    public Object eval(Reader reader, ScriptContext context) throws ScriptException {
+        return eval(read(reader), context);
+    }
+
+    @Override
+    public CompiledScript compile(String script) throws ScriptException {
+        return compile(script, getContext());
+    }
+
+    @Override
+    public CompiledScript compile(Reader script) throws ScriptException {
+        return compile(read(script));
+    }
+
+    @Override
+    public Bindings createBindings() {
+        return new SimpleBindings();
+    }
+
+    @Override
+    public ScriptEngineFactory getFactory() {
+        return factory;
+    }
+
+    private CompiledScript compile(String script, ScriptContext context) throws ScriptException {
+        try {
+            return new CosmoCompiledScript(this, CosmoEngine.compile(script, engine(context)));
+        } catch (IllegalStateException e) {
+            throw CosmoCompiledScript.scriptException(e);
+        }
+    }
+
+    private static Engine engine(ScriptContext context) {
+        Object engine = context.getAttribute(ENGINE_ATTRIBUTE);
+        if (engine instanceof Engine) {
+            return (Engine) engine;
+        }
+        return engine == null ? Engine.configured() : Engine.named(engine.toString());
+    }
+
+    private static String read(Reader reader) throws ScriptException {
+        StringWriter source = new StringWriter();
+        try {
+            reader.transferTo(source);
+        } catch (IOException e) {
+            throw new ScriptException(e);
+        }
+        return source.toString();
+    }
+}
@@ -0,0 +1,91 @@
+package cosmo.script;
+
+import java.util.List;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+
+/**
+ * Makes CosmoCode available to {@link javax.script.ScriptEngineManager}
+ * under the names "cosmo" and "cosmocode" and the extension ".cosmo".
+ * Registered in {@code META-INF/services/javax.script.ScriptEngineFactory}.
+ */
+public final class CosmoScriptEngineFactory implements ScriptEngineFactory {
+    private static final String VERSION = "1.0";
+
+    @Override
+    public String getEngineName() {
+        return "CosmoCode";
+    }
+
+    @Override
+    public String getEngineVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public List<String> getExtensions() {
+        return List.of("cosmo");
+    }
+
+    @Override
+    public List<String> getMimeTypes() {
+        return List.of("text/x-cosmocode");
+    }
+
+    @Override
+    public List<String> getNames() {
+        return List.of("cosmo", "cosmocode", "CosmoCode");
+    }
+
+    @Override
+    public String getLanguageName() {
+        return "CosmoCode";
+    }
+
+    @Override
+    public String getLanguageVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public Object getParameter(String key) {
+        switch (key) {
+            case ScriptEngine.ENGINE:
+                return getEngineName();
+            case ScriptEngine.ENGINE_VERSION:
+                return getEngineVersion();
+            case ScriptEngine.LANGUAGE:
+                return getLanguageName();
+            case ScriptEngine.LANGUAGE_VERSION:
+                return getLanguageVersion();
+            case ScriptEngine.NAME:
+                return getNames().get(0);
+            case "THREADING":
+                // Runs share no state, and compiled scripts may be evaluated concurrently
+                return "MULTITHREADED";
+            default:
+                return null;
+        }
+    }
+
+    // CosmoCode has no methods to call
+    @Override
+    public String getMethodCallSyntax(String obj, String m, String... args) {
+        throw new UnsupportedOperationException("CosmoCode has no method calls");
+    }
+
+    @Override
+    public String getOutputStatement(String toDisplay) {
+        return "transmission ( \"" + toDisplay + "\" ) ;";
+    }
+
+    @Override
+    public String getProgram(String... statements) {
+        return String.join("\n", statements);
+    }
+
+    @Override
+    public ScriptEngine getScriptEngine() {
+        return new CosmoScriptEngine(this);
+    }
+}